@@ -0,0 +1,75 @@
+package com.maemlab.craftbox.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maemlab.craftbox.Collections;
+
+/**
+ * {@link Collections#contains} for Strings, ints and doubles across set sizes,
+ * looking up a value in the middle of the set or a missing one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionsBenchmark {
+
+    @Param({"4", "16", "64", "1024"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean hit;
+
+    private String[] strings;
+    private int[] ints;
+    private double[] doubles;
+    private String stringKey;
+    private int intKey;
+    private double doubleKey;
+
+    @Setup
+    public void createSets() {
+        strings = new String[size];
+        ints = new int[size];
+        doubles = new double[size];
+        for (int i = 0; i < size; i++) {
+            strings[i] = "value-" + i;
+            ints[i] = i * 7;
+            doubles[i] = i * 0.5;
+        }
+        int key = hit ? size / 2 : size;
+        // A fresh String, so that equals cannot short-circuit on identity
+        stringKey = new String("value-" + key);
+        intKey = key * 7;
+        doubleKey = key * 0.5;
+    }
+
+    @Benchmark
+    public boolean containsString() {
+        return Collections.contains(stringKey, strings);
+    }
+
+    @Benchmark
+    public boolean containsInt() {
+        return Collections.contains(intKey, ints);
+    }
+
+    @Benchmark
+    public boolean containsDouble() {
+        return Collections.contains(doubleKey, doubles);
+    }
+}
@@ -0,0 +1,106 @@
+package com.maemlab.craftbox.jmh;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maemlab.craftbox.DateTimeFormatUtils;
+
+/**
+ * Formatters and parsers of {@link DateTimeFormatUtils}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeFormatBenchmark {
+    private final LocalDate date = LocalDate.of(2024, 2, 29);
+    private final LocalTime time = LocalTime.of(23, 59, 7);
+    private final long epochMillis = 1_709_251_147_000L;
+    private final String isoDate = "2024-02-29";
+    private final String timestamp = "2024-02-29 23:59:07";
+
+    //******************
+    //*  Current time  *
+    //******************
+
+    @Benchmark
+    public String formatNow() {
+        return DateTimeFormatUtils.formatNow();
+    }
+
+    @Benchmark
+    public String formatNowItalian() {
+        return DateTimeFormatUtils.formatNowItalian();
+    }
+
+    @Benchmark
+    public String nowToTimestamp() {
+        return DateTimeFormatUtils.nowToTimestamp();
+    }
+
+    @Benchmark
+    public String compactTimestampNow() {
+        return DateTimeFormatUtils.getCompactTimestamp();
+    }
+
+    //****************
+    //*  Formatters  *
+    //****************
+
+    @Benchmark
+    public String compactTimestamp() {
+        return DateTimeFormatUtils.getCompactTimestamp(epochMillis);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return DateTimeFormatUtils.formatDate(date);
+    }
+
+    @Benchmark
+    public String formatDateItalian() {
+        return DateTimeFormatUtils.formatDateItalian(date);
+    }
+
+    @Benchmark
+    public String formatDateTime() {
+        return DateTimeFormatUtils.formatDateTime(date, time);
+    }
+
+    @Benchmark
+    public String toISOString() {
+        return DateTimeFormatUtils.toISOString(date);
+    }
+
+    //*************
+    //*  Parsers  *
+    //*************
+
+    @Benchmark
+    public String toItalianDate() {
+        return DateTimeFormatUtils.toItalianDate(isoDate);
+    }
+
+    @Benchmark
+    public String toItalianDateAndTime() {
+        return DateTimeFormatUtils.toItalianDateAndTime(timestamp);
+    }
+
+    @Benchmark
+    public LocalDate toISOLocalDate() {
+        return DateTimeFormatUtils.toISOLocalDate(isoDate);
+    }
+}
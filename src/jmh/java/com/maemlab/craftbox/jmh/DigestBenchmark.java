@@ -0,0 +1,72 @@
+package com.maemlab.craftbox.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maemlab.craftbox.DigestUtils;
+import com.maemlab.craftbox.FileOperations;
+
+/**
+ * {@link DigestUtils#calculateDigest(Path, String)} on files from 1KB to 64MB
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestBenchmark {
+
+    @Param({"1024", "1048576", "67108864"})
+    public int fileSize;
+
+    @Param({"MD5", "SHA-256"})
+    public String algorithm;
+
+    private Path dir;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        dir = Files.createTempDirectory("craftbox-digest");
+        file = dir.resolve("data.bin");
+        byte[] chunk = new byte[64 * 1024];
+        new Random(42).nextBytes(chunk);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (int written = 0; written < fileSize; written += chunk.length) {
+                ch.write(ByteBuffer.wrap(chunk, 0, Math.min(chunk.length, fileSize - written)));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        FileOperations.deleteDir(dir);
+    }
+
+    @Benchmark
+    public String calculateDigest() throws NoSuchAlgorithmException, IOException {
+        return DigestUtils.calculateDigest(file, algorithm);
+    }
+}
@@ -0,0 +1,83 @@
+package com.maemlab.craftbox.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maemlab.craftbox.FileOperations;
+
+/**
+ * {@link FileOperations#listFiles(Path)} on trees of 2000 empty files with different shapes:
+ * <ul>
+ *     <li>flat: one directory</li>
+ *     <li>wide: 50 directories of 40 files</li>
+ *     <li>deep: a chain of 100 nested directories of 20 files each</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListFilesBenchmark {
+
+    @Param({"flat", "wide", "deep"})
+    public String shape;
+
+    private Path root;
+
+    @Setup(Level.Trial)
+    public void createTree() throws IOException {
+        root = Files.createTempDirectory("craftbox-list");
+        switch (shape) {
+            case "flat" -> createFiles(root, 2000);
+            case "wide" -> {
+                for (int d = 0; d < 50; d++) {
+                    createFiles(Files.createDirectory(root.resolve("dir" + d)), 40);
+                }
+            }
+            case "deep" -> {
+                Path dir = root;
+                for (int d = 0; d < 100; d++) {
+                    dir = Files.createDirectory(dir.resolve("d" + d));
+                    createFiles(dir, 20);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() {
+        FileOperations.deleteDir(root);
+    }
+
+    @Benchmark
+    public List<File> listFiles() throws IOException {
+        return FileOperations.listFiles(root);
+    }
+
+    private static void createFiles(Path dir, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            Files.createFile(dir.resolve("file" + i + ".txt"));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.maemlab.craftbox.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.maemlab.craftbox.StringUtils;
+
+/**
+ * Word extraction and padding of {@link StringUtils}, on a delimited record of 12 fields
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringUtilsBenchmark {
+    private final String record = "10452;Rossi;Mario;1980-05-17;Via Roma 12;Milano;MI;20121;IT;mario.rossi@example.com;+39 02 1234567;active";
+    private final String sentence = "the quick  brown fox   jumps over the lazy dog";
+    private int number = 7;
+    private String numberText = "7";
+
+    @Benchmark
+    public int wordCountChar() {
+        return StringUtils.getWordCount(record, ";");
+    }
+
+    @Benchmark
+    public int wordCountRegex() {
+        return StringUtils.getWordCount(sentence, "\\s+");
+    }
+
+    @Benchmark
+    public String wordNum() {
+        return StringUtils.getWordNum(record, 6, ";");
+    }
+
+    @Benchmark
+    public String zeroPaddingInt() {
+        return StringUtils.zeroPadding(number);
+    }
+
+    @Benchmark
+    public String zeroPaddingString() {
+        return StringUtils.zeroPadding(numberText);
+    }
+}
@@ -0,0 +1,523 @@
+package com.maemlab.craftbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous companion of {@link FileOperations}: reads, writes, copies and deletes that return a
+ * {@link CompletableFuture} instead of blocking the caller.
+ * <p>
+ * Transfers run on {@link AsynchronousFileChannel}s through reusable direct buffers of a fixed size, taken from a
+ * pool and returned when the operation ends. At most {@code maxInFlight} operations run at once; further ones are
+ * queued without blocking the caller and start as others complete. Futures complete on the I/O threads, so
+ * dependent stages should be light or moved to another executor.
+ * <p>
+ * Opening a file happens on the calling thread. On platforms without native asynchronous file I/O (e.g. Linux)
+ * the JDK performs the transfers on the I/O threads, which this class owns and stops in {@link #close()}.
+ */
+public final class AsyncFileOperations implements Closeable {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final Set<OpenOption> READ = Set.of(StandardOpenOption.READ);
+    private static final Set<OpenOption> WRITE = Set.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    private static final Set<OpenOption> WRITE_NEW = Set.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+
+    private final int maxInFlight;
+    private final int bufferSize;
+    private final ExecutorService executor;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+    private final AtomicInteger permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    // Requests to start waiting operations; only the thread that raises it from 0 drains the queue
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * Creates an instance running up to 64 operations at once with 64 KB buffers
+     */
+    public AsyncFileOperations() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates an instance
+     *
+     * @param maxInFlight the maximum number of operations running at once
+     * @param bufferSize the size of each transfer buffer
+     */
+    public AsyncFileOperations(int maxInFlight, int bufferSize) {
+        if (maxInFlight < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("maxInFlight and bufferSize must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.bufferSize = bufferSize;
+        this.permits = new AtomicInteger(maxInFlight);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "craftbox-async-io");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    //*************
+    //*  Reading  *
+    //*************
+
+    /**
+     * Reads a whole file
+     *
+     * @param file the file to read
+     * @return the content of the file
+     */
+    public CompletableFuture<byte[]> readAllBytes(Path file) {
+        return submit(result -> new ReadAll(open(file, READ), result).start());
+    }
+
+    /**
+     * Reads a whole text file using UTF-8 encoding
+     *
+     * @param file the file to read
+     * @return the content of the file
+     */
+    public CompletableFuture<String> readString(Path file) {
+        return readString(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a whole text file. Like {@link Files#readString(Path, Charset)}, malformed input
+     * completes the future with a {@link java.nio.charset.CharacterCodingException}.
+     *
+     * @param file the file to read
+     * @param charset the encoding of the file
+     * @return the content of the file
+     */
+    public CompletableFuture<String> readString(Path file, Charset charset) {
+        return readAllBytes(file).thenApply(bytes -> {
+            try {
+                return charset.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    //*************
+    //*  Writing  *
+    //*************
+
+    /**
+     * Writes bytes to a file, creating it or replacing its content
+     *
+     * @param file the file to write
+     * @param bytes the content
+     * @return completes when the content has been written
+     */
+    public CompletableFuture<Void> write(Path file, byte[] bytes) {
+        return submit(result -> new WriteAll(open(file, WRITE), bytes, result).start());
+    }
+
+    /**
+     * Writes a string to a file using UTF-8 encoding, creating it or replacing its content
+     *
+     * @param file the file to write
+     * @param content the content
+     * @return completes when the content has been written
+     */
+    public CompletableFuture<Void> writeString(Path file, String content) {
+        return writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a string to a file, creating it or replacing its content
+     *
+     * @param file the file to write
+     * @param content the content
+     * @param charset the encoding of the file
+     * @return completes when the content has been written
+     */
+    public CompletableFuture<Void> writeString(Path file, String content, Charset charset) {
+        return write(file, content.getBytes(charset));
+    }
+
+    //*********************
+    //*  Copy and delete  *
+    //*********************
+
+    /**
+     * Copies a file. Like {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}, an existing target
+     * fails the copy with a {@link java.nio.file.FileAlreadyExistsException} unless replaceExisting is set,
+     * and copying a file onto itself does nothing.
+     *
+     * @param source the file to copy
+     * @param target the destination file
+     * @param replaceExisting whether an existing target is overwritten
+     * @return the number of bytes copied, 0 if source and target are the same file
+     */
+    public CompletableFuture<Long> copy(Path source, Path target, boolean replaceExisting) {
+        return submit(result -> {
+            // Opening the target would truncate the source before it is read
+            if (Files.exists(target) && Files.isSameFile(source, target)) {
+                result.complete(0L);
+                return;
+            }
+            AsynchronousFileChannel in = open(source, READ);
+            AsynchronousFileChannel out;
+            try {
+                out = open(target, replaceExisting ? WRITE : WRITE_NEW);
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(in);
+                throw e;
+            }
+            new Copy(in, out, result).start();
+        });
+    }
+
+    /**
+     * Deletes a file, or an empty directory. File systems offer no asynchronous delete,
+     * so it runs on one of the I/O threads.
+     *
+     * @param file the file to delete
+     * @return completes when the file has been deleted
+     */
+    public CompletableFuture<Void> delete(Path file) {
+        return submit(result -> executor.execute(() -> {
+            try {
+                Files.delete(file);
+                result.complete(null);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }));
+    }
+
+    //***************
+    //*  Lifecycle  *
+    //***************
+
+    /**
+     * @return the number of operations running, not counting the queued ones
+     */
+    public int inFlight() {
+        return maxInFlight - permits.get();
+    }
+
+    /**
+     * Fails the queued operations, waits for the running ones and stops the I/O threads
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Runnable r;
+        while ((r = waiting.poll()) != null) {
+            // Admitted after close, so it fails at once
+            r.run();
+        }
+        for (CompletableFuture<?> f : inFlight) {
+            try {
+                f.join();
+            } catch (RuntimeException e) {
+                // Reported to the owner of the future
+            }
+        }
+        executor.shutdown();
+        buffers.clear();
+    }
+
+    //***************
+    //*  Internals  *
+    //***************
+
+    @FunctionalInterface
+    private interface Operation<T> {
+        void start(CompletableFuture<T> result) throws IOException;
+    }
+
+    /**
+     * Starts the operation now if a permit is free, or queues it
+     */
+    private <T> CompletableFuture<T> submit(Operation<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            if (closed) {
+                result.completeExceptionally(new IOException("AsyncFileOperations is closed"));
+                return;
+            }
+            inFlight.add(result);
+            result.whenComplete((v, e) -> {
+                inFlight.remove(result);
+                permits.incrementAndGet();
+                startWaiting();
+            });
+            try {
+                operation.start(result);
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        if (closed) {
+            start.run();
+        } else if (tryAcquire()) {
+            start.run();
+        } else {
+            waiting.add(start);
+            // A permit may have been released between the failed acquire and the enqueue
+            startWaiting();
+        }
+        return result;
+    }
+
+    /**
+     * Starts queued operations while permits are free. An operation failing at once completes on this thread and
+     * calls back here: the nested call only records the request and the outer loop serves it, so the stack stays
+     * flat however long the queue is.
+     */
+    private void startWaiting() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!waiting.isEmpty() && tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.incrementAndGet();
+                    break;
+                }
+                next.run();
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private boolean tryAcquire() {
+        int p;
+        do {
+            p = permits.get();
+            if (p == 0) {
+                return false;
+            }
+        } while (!permits.compareAndSet(p, p - 1));
+        return true;
+    }
+
+    private AsynchronousFileChannel open(Path file, Set<OpenOption> options) throws IOException {
+        return AsynchronousFileChannel.open(file, options, executor);
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer b = buffers.poll();
+        if (b == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooledBuffers.decrementAndGet();
+        return b;
+    }
+
+    private void releaseBuffer(ByteBuffer b) {
+        // Keep at most one buffer per possible operation
+        if (!closed && pooledBuffers.incrementAndGet() <= maxInFlight) {
+            b.clear();
+            buffers.offer(b);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    /**
+     * Base of the transfers: owns the channels and the buffer, and releases them exactly once at the end
+     */
+    private abstract class Transfer<T> implements CompletionHandler<Integer, Void> {
+        final ByteBuffer buffer = acquireBuffer();
+        final CompletableFuture<T> result;
+        private final AsynchronousFileChannel[] channels;
+
+        Transfer(CompletableFuture<T> result, AsynchronousFileChannel... channels) {
+            this.result = result;
+            this.channels = channels;
+        }
+
+        /**
+         * Runs a step, failing the transfer if the channel rejects it
+         */
+        void step(Runnable action) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                failed(e, null);
+            }
+        }
+
+        void finish(T value) {
+            release();
+            result.complete(value);
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            release();
+            result.completeExceptionally(e);
+        }
+
+        private void release() {
+            for (AsynchronousFileChannel channel : channels) {
+                closeQuietly(channel);
+            }
+            releaseBuffer(buffer);
+        }
+    }
+
+    private final class ReadAll extends Transfer<byte[]> {
+        private final AsynchronousFileChannel channel;
+        private byte[] data;
+        private int size;
+
+        ReadAll(AsynchronousFileChannel channel, CompletableFuture<byte[]> result) {
+            super(result, channel);
+            this.channel = channel;
+        }
+
+        void start() {
+            try {
+                long length = channel.size();
+                if (length > MAX_ARRAY_SIZE) {
+                    failed(new OutOfMemoryError("File too large: " + length + " bytes"), null);
+                    return;
+                }
+                data = new byte[(int) length];
+            } catch (IOException e) {
+                failed(e, null);
+                return;
+            }
+            step(() -> channel.read(buffer, 0, null, this));
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            if (n < 0) {
+                finish(size == data.length ? data : Arrays.copyOf(data, size));
+                return;
+            }
+            buffer.flip();
+            if (size + n > data.length) {
+                // The file grew since its size was read
+                if (size + n > MAX_ARRAY_SIZE) {
+                    failed(new OutOfMemoryError("File too large"), null);
+                    return;
+                }
+                data = Arrays.copyOf(data, (int) Math.min(MAX_ARRAY_SIZE, Math.max(size + n, 2L * data.length)));
+            }
+            buffer.get(data, size, n);
+            size += n;
+            buffer.clear();
+            step(() -> channel.read(buffer, size, null, this));
+        }
+    }
+
+    private final class WriteAll extends Transfer<Void> {
+        private final AsynchronousFileChannel channel;
+        private final byte[] bytes;
+        private long position;
+
+        WriteAll(AsynchronousFileChannel channel, byte[] bytes, CompletableFuture<Void> result) {
+            super(result, channel);
+            this.channel = channel;
+            this.bytes = bytes;
+        }
+
+        void start() {
+            fill();
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            position += n;
+            if (buffer.hasRemaining()) {
+                step(() -> channel.write(buffer, position, null, this));
+            } else {
+                fill();
+            }
+        }
+
+        private void fill() {
+            if (position == bytes.length) {
+                finish(null);
+                return;
+            }
+            buffer.clear();
+            buffer.put(bytes, (int) position, (int) Math.min(buffer.capacity(), bytes.length - position));
+            buffer.flip();
+            step(() -> channel.write(buffer, position, null, this));
+        }
+    }
+
+    private final class Copy extends Transfer<Long> {
+        private final AsynchronousFileChannel in;
+        private final AsynchronousFileChannel out;
+        private long readPosition;
+        private long writePosition;
+        private boolean writing;
+
+        Copy(AsynchronousFileChannel in, AsynchronousFileChannel out, CompletableFuture<Long> result) {
+            super(result, in, out);
+            this.in = in;
+            this.out = out;
+        }
+
+        void start() {
+            step(() -> in.read(buffer, 0, null, this));
+        }
+
+        @Override
+        public void completed(Integer n, Void attachment) {
+            if (writing) {
+                writePosition += n;
+            } else if (n < 0) {
+                finish(writePosition);
+                return;
+            } else {
+                readPosition += n;
+                buffer.flip();
+                writing = true;
+            }
+            if (buffer.hasRemaining()) {
+                step(() -> out.write(buffer, writePosition, null, this));
+            } else {
+                writing = false;
+                buffer.clear();
+                step(() -> in.read(buffer, readPosition, null, this));
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.maemlab.craftbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous text sink: logging threads enqueue messages and return, a single background thread writes them.
+ * <p>
+ * Messages go into a bounded lock-free ring buffer that any number of threads can fill concurrently. The writer
+ * thread drains everything available in one batch, encodes it into a buffer and hands it to the channel with a
+ * single write, so the cost of the terminal or pipe is paid once per batch instead of once per message.
+ * Messages from one thread keep their order. When the buffer is full, the {@link OverflowPolicy} decides what
+ * happens to the caller; dropped messages are counted and reported in the output.
+ * <p>
+ * {@link #close()} writes every accepted message before returning, and is also run at shutdown for the sinks
+ * still open, by a single hook shared by all of them.
+ *
+ * @see PrintUtils#enableAsync()
+ */
+public final class AsyncLogSink implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    // Set on the tail by the writer once closed and drained: no producer can claim a slot after that
+    private static final long SEALED = 1L << 62;
+
+    /**
+     * What a logging thread does when the ring buffer is full
+     */
+    public enum OverflowPolicy {
+        /** Wait for free space, so no message is lost */
+        BLOCK,
+        /** Discard the message */
+        DROP,
+        /** Discard most messages, but wait for space for one in every {@code sampleRate} */
+        SAMPLE
+    }
+
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+
+    // Ring buffer: a slot is free for position p when its sequence is p, and holds a message when it is p + 1
+    private final String[] messages;
+    private final boolean[] newlines;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong overflows = new AtomicLong();
+    private final Thread writer;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] lineSeparator;
+    private long droppedReported;
+
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+    private volatile long written;
+    private volatile IOException lastError;
+
+    /**
+     * Creates a sink writing to a channel, which is closed with the sink
+     *
+     * @param channel the destination
+     * @param charset the charset of the output
+     * @param capacity the number of messages the ring buffer holds, rounded up to a power of two
+     * @param policy what to do when the buffer is full
+     * @param sampleRate with {@link OverflowPolicy#SAMPLE}, one message in sampleRate is kept while the buffer is full
+     */
+    public AsyncLogSink(WritableByteChannel channel, Charset charset, int capacity, OverflowPolicy policy, int sampleRate) {
+        this(channel, true, charset, capacity, policy, sampleRate);
+    }
+
+    private AsyncLogSink(WritableByteChannel channel, boolean closeChannel, Charset charset, int capacity,
+                         OverflowPolicy policy, int sampleRate) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Invalid sample rate: " + sampleRate);
+        }
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.policy = policy;
+        this.sampleRate = sampleRate;
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.messages = new String[size];
+        this.newlines = new boolean[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.lineSeparator = System.lineSeparator().getBytes(charset);
+
+        writer = new Thread(this::drainLoop, "craftbox-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        ShutdownHook.SINKS.add(this);
+    }
+
+    /**
+     * Creates a sink writing to the standard output, which stays open when the sink is closed.
+     * Each batch is written to the {@link System#out} current at that time, so redirections made with
+     * {@link System#setOut} apply as they do to direct prints. Prints made directly to System.out are
+     * ordered with the messages of the sink only up to the last {@link #flush()}.
+     *
+     * @param capacity the number of messages the ring buffer holds
+     * @param policy what to do when the buffer is full
+     * @return the sink
+     */
+    public static AsyncLogSink stdout(int capacity, OverflowPolicy policy) {
+        return new AsyncLogSink(new SystemOutChannel(), false, Charset.defaultCharset(), capacity, policy, 100);
+    }
+
+    /**
+     * Enqueues a message
+     *
+     * @param message the message
+     * @return false if the message was dropped
+     */
+    public boolean print(String message) {
+        return offer(message, false);
+    }
+
+    /**
+     * Enqueues a message followed by a line separator
+     *
+     * @param message the message
+     * @return false if the message was dropped
+     */
+    public boolean println(String message) {
+        return offer(message, true);
+    }
+
+    /**
+     * Waits until every message enqueued before this call has been written, or the writer thread has died
+     */
+    public void flush() {
+        long target = tail.get() & ~SEALED;
+        LockSupport.unpark(writer);
+        while (written < target && writer.isAlive()) {
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    /**
+     * @return the number of messages dropped because the buffer was full or the sink closed
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return the last error raised by the channel, or null. An unchecked exception thrown by the channel is
+     * wrapped in an IOException.
+     */
+    public IOException lastError() {
+        return lastError;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops accepting messages, writes the pending ones and closes the channel if the sink owns it
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        if (Thread.currentThread() != writer) {
+            boolean interrupted = false;
+            while (writer.isAlive()) {
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ShutdownHook.SINKS.remove(this);
+    }
+
+    private boolean offer(String message, boolean newline) {
+        long pos = tail.get();
+        boolean sampled = false;
+        // Stop also if the writer thread died, or BLOCK would wait forever for space
+        while (!closed && (pos & SEALED) == 0 && writer.isAlive()) {
+            int i = (int) pos & mask;
+            long diff = sequences.get(i) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    messages[i] = message;
+                    newlines[i] = newline;
+                    sequences.set(i, pos + 1);
+                    if (writerParked) {
+                        LockSupport.unpark(writer);
+                    }
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // Full: the slot still holds the message from one lap ago
+                if (policy == OverflowPolicy.SAMPLE && !sampled) {
+                    sampled = overflows.incrementAndGet() % sampleRate == 0;
+                }
+                if (policy == OverflowPolicy.DROP || (policy == OverflowPolicy.SAMPLE && !sampled)) {
+                    dropped.increment();
+                    return false;
+                }
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+                pos = tail.get();
+            } else {
+                pos = tail.get();
+            }
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            long from = head;
+            drain();
+            if (head != from) {
+                written = head;
+                continue;
+            }
+            if (closed) {
+                // Producers that claimed a slot before close still publish it; wait for them, then seal the
+                // tail so that a producer that has not claimed one yet fails instead of being silently lost
+                if (tail.compareAndSet(head, head | SEALED)) {
+                    break;
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            writerParked = true;
+            if (!hasMessage()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+        reportDropped();
+        writeBuffer();
+        written = head;
+        if (closeChannel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                lastError = e;
+            }
+        }
+    }
+
+    private boolean hasMessage() {
+        return sequences.get((int) head & mask) == head + 1;
+    }
+
+    /**
+     * Writes every message currently in the ring buffer with as few channel writes as the buffer size allows
+     */
+    private void drain() {
+        while (hasMessage()) {
+            int i = (int) head & mask;
+            String message = messages[i];
+            boolean newline = newlines[i];
+            messages[i] = null;
+            sequences.set(i, head + messages.length);
+            head++;
+            encode(message);
+            if (newline) {
+                put(lineSeparator);
+            }
+        }
+        reportDropped();
+        writeBuffer();
+    }
+
+    private void reportDropped() {
+        long d = dropped.sum();
+        if (d != droppedReported) {
+            encode("[" + (d - droppedReported) + " log messages dropped]");
+            put(lineSeparator);
+            droppedReported = d;
+        }
+    }
+
+    private void encode(String message) {
+        CharBuffer in = CharBuffer.wrap(message == null ? "null" : message);
+        encoder.reset();
+        while (true) {
+            boolean overflow = encoder.encode(in, buffer, true).isOverflow();
+            overflow |= !in.hasRemaining() && encoder.flush(buffer).isOverflow();
+            if (!overflow) {
+                return;
+            }
+            writeBuffer();
+        }
+    }
+
+    private void put(byte[] bytes) {
+        if (buffer.remaining() < bytes.length) {
+            writeBuffer();
+        }
+        buffer.put(bytes);
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            lastError = e;
+        } catch (RuntimeException e) {
+            // Keep the writer thread alive, as for an IOException
+            lastError = new IOException(e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Closes at shutdown the sinks still open, with one hook registered on first use
+     */
+    private static final class ShutdownHook {
+        static final Set<AsyncLogSink> SINKS = ConcurrentHashMap.newKeySet();
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> SINKS.forEach(AsyncLogSink::close),
+                    "craftbox-log-shutdown"));
+        }
+    }
+
+    /**
+     * Channel over whatever {@link System#out} is when each batch is written
+     */
+    private static final class SystemOutChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            PrintStream out = System.out;
+            // The sink's buffer is a heap buffer, written without copying
+            out.write(src.array(), src.arrayOffset() + src.position(), n);
+            out.flush();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            // System.out belongs to the application
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.maemlab.craftbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Background writer that replaces small files (e.g. JSON state files) atomically and with group commit.
+ * <p>
+ * Each file is written to a temporary file in the same directory and then renamed over the target, so readers
+ * and crashes never observe a half-written file. Writes are queued and handled in batches by a single background
+ * thread: repeated writes to the same path before it is written are coalesced into the last one, the temporary
+ * files of a batch are synced together and each touched directory is synced once per batch.
+ * <p>
+ * Every write returns a future completing once the file is durably in place.
+ *
+ * <pre>{@code
+ * try (var writer = new AtomicFileWriter()) {
+ *     writer.write(Path.of("state/job-42.json"), json);
+ * }
+ * }</pre>
+ */
+public final class AtomicFileWriter implements Closeable {
+    private static final long DEFAULT_BATCH_WINDOW_MILLIS = 5;
+    private static final int MAX_BATCH = 512;
+    // Queued by close() after every accepted write; the worker stops once it has committed what precedes it
+    private static final Path CLOSE = Path.of("");
+
+    private final Map<Path, Pending> pending = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Path> queue = new LinkedBlockingQueue<>();
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+    private final long batchWindowMillis;
+    private final boolean sync;
+    private final Thread worker;
+    // Held shared while queueing a write and exclusively by close(), so no write is queued after CLOSE
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    private static final class Pending {
+        private byte[] content;
+        private final List<CompletableFuture<Void>> futures = new ArrayList<>(1);
+
+        Pending(byte[] content, CompletableFuture<Void> future) {
+            this.content = content;
+            this.futures.add(future);
+        }
+    }
+
+    /**
+     * Creates a writer that syncs files to disk and collects writes for 5 ms before each batch
+     */
+    public AtomicFileWriter() {
+        this(DEFAULT_BATCH_WINDOW_MILLIS, true);
+    }
+
+    /**
+     * Creates a writer
+     *
+     * @param batchWindowMillis how long to collect further writes after the first one of a batch
+     * @param sync whether to fsync files and directories; without it the writes are still atomic but not durable
+     */
+    public AtomicFileWriter(long batchWindowMillis, boolean sync) {
+        if (batchWindowMillis < 0) {
+            throw new IllegalArgumentException("batchWindowMillis must not be negative");
+        }
+        this.batchWindowMillis = batchWindowMillis;
+        this.sync = sync;
+        this.worker = new Thread(this::run, "craftbox-atomic-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues a UTF-8 string to be written to a file, creating the parent directories if needed
+     *
+     * @param path the target file
+     * @param content the content of the file
+     * @return a future completing when the file is in place, or exceptionally if the write failed
+     * @throws RejectedExecutionException if the writer is closed
+     */
+    public CompletableFuture<Void> write(Path path, String content) {
+        return write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Queues bytes to be written to a file, creating the parent directories if needed
+     *
+     * @param path the target file
+     * @param content the content of the file, not to be modified afterwards
+     * @return a future completing when the file is in place, or exceptionally if the write failed
+     * @throws RejectedExecutionException if the writer is closed
+     */
+    public CompletableFuture<Void> write(Path path, byte[] content) {
+        var future = new CompletableFuture<Void>();
+        Path target = path.toAbsolutePath().normalize();
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("Writer is closed");
+            }
+            pending.compute(target, (k, p) -> {
+                if (p == null) {
+                    queue.add(k);
+                    return new Pending(content, future);
+                }
+                p.content = content;
+                p.futures.add(future);
+                return p;
+            });
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return future;
+    }
+
+    /**
+     * Writes everything queued so far and stops the background thread
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(CLOSE);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        // The worker is never interrupted: an interrupt would abort the FileChannel writes of the last batch
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Path> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            Path first;
+            try {
+                first = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            batch.add(first);
+            if (first != CLOSE && batchWindowMillis > 0 && !closed) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(batchWindowMillis);
+                } catch (InterruptedException e) {
+                    // Commit what has been collected so far
+                }
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            // CLOSE is the last path ever queued, so it can only be the last of its batch
+            boolean stop = batch.get(batch.size() - 1) == CLOSE;
+            if (stop) {
+                batch.remove(batch.size() - 1);
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+            if (stop) {
+                return;
+            }
+        }
+    }
+
+    private void commit(List<Path> paths) {
+        List<Path> targets = new ArrayList<>(paths.size());
+        List<Pending> entries = new ArrayList<>(paths.size());
+        List<Path> temps = new ArrayList<>(paths.size());
+        List<FileChannel> channels = new ArrayList<>(paths.size());
+        Set<Path> directories = new LinkedHashSet<>();
+
+        // Phase 1: write every temporary file
+        for (Path target : paths) {
+            Pending p = pending.remove(target);
+            Path tmp = null;
+            FileChannel channel = null;
+            try {
+                Path dir = target.getParent();
+                if (knownDirectories.add(dir)) {
+                    Files.createDirectories(dir);
+                }
+                tmp = FileOperations.tempSibling(target);
+                channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                ByteBuffer buffer = ByteBuffer.wrap(p.content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                targets.add(target);
+                entries.add(p);
+                temps.add(tmp);
+                channels.add(channel);
+                directories.add(dir);
+            } catch (IOException | RuntimeException e) {
+                knownDirectories.remove(target.getParent());
+                closeQuietly(channel);
+                deleteQuietly(tmp);
+                fail(p, e);
+            }
+        }
+
+        // Phase 2: sync the whole batch, then rename each file over its target
+        for (int i = 0; i < targets.size(); i++) {
+            Pending p = entries.get(i);
+            try (FileChannel channel = channels.get(i)) {
+                if (sync) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                deleteQuietly(temps.get(i));
+                fail(p, e);
+                entries.set(i, null);
+            }
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            Pending p = entries.get(i);
+            if (p == null) {
+                continue;
+            }
+            try {
+                FileOperations.moveAtomically(temps.get(i), targets.get(i));
+            } catch (IOException e) {
+                deleteQuietly(temps.get(i));
+                fail(p, e);
+                entries.set(i, null);
+            }
+        }
+
+        // Phase 3: make the renames durable, once per directory
+        if (sync) {
+            for (Path dir : directories) {
+                FileOperations.syncDirectory(dir);
+            }
+        }
+        for (Pending p : entries) {
+            if (p != null) {
+                p.futures.forEach(f -> f.complete(null));
+            }
+        }
+    }
+
+    private static void fail(Pending p, Exception e) {
+        p.futures.forEach(f -> f.completeExceptionally(e));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private static void deleteQuietly(Path tmp) {
+        if (tmp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.maemlab.craftbox;
+
+/**
+ * Bulk scanning primitives behind {@link BulkSearch}, implemented by {@link ScalarKernels} and,
+ * when the incubating Vector API is available, by {@code VectorKernels}.
+ * <p>
+ * Mask methods set bit {@code i} of {@code mask} (word {@code i >>> 6}) for each matching index
+ * and expect the mask to be cleared beforehand.
+ */
+interface BulkKernels {
+
+    int indexOf(int[] a, int value);
+
+    int indexOf(long[] a, long value);
+
+    int indexOf(double[] a, double value);
+
+    int count(int[] a, int value);
+
+    int count(long[] a, long value);
+
+    int count(double[] a, double value);
+
+    boolean containsAny(int[] a, int[] values);
+
+    boolean containsAny(long[] a, long[] values);
+
+    boolean containsAny(double[] a, double[] values);
+
+    int mask(int[] a, int value, long[] mask);
+
+    int mask(long[] a, long value, long[] mask);
+
+    int mask(double[] a, double value, long[] mask);
+}
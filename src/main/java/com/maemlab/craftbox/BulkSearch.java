@@ -0,0 +1,214 @@
+package com.maemlab.craftbox;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Bulk search operations over large primitive arrays: index-of, count, contains-any and match masks.
+ * <p>
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector}, the scans use the Vector API and compare
+ * several elements per instruction; otherwise they fall back to plain loops with the same results. Setting the
+ * system property {@code craftbox.vector=false} forces the fallback. Doubles are compared with {@code ==} as in
+ * {@link Collections#contains(double, double...)}: {@code 0.0} matches {@code -0.0} and {@code NaN} never matches.
+ */
+public final class BulkSearch {
+    private static final BulkKernels KERNELS = loadKernels();
+
+    private BulkSearch() {}
+
+    /**
+     * @return true if the scans run on the Vector API
+     */
+    public static boolean isVectorized() {
+        return !(KERNELS instanceof ScalarKernels);
+    }
+
+    //**************
+    //*  Index of  *
+    //**************
+
+    /**
+     * Returns the index of the first occurrence of a value
+     *
+     * @param a the array to scan
+     * @param value the value to find
+     * @return the first index holding the value, or -1
+     */
+    public static int indexOf(int[] a, int value) {
+        return KERNELS.indexOf(a, value);
+    }
+
+    /**
+     * Returns the index of the first occurrence of a value
+     *
+     * @param a the array to scan
+     * @param value the value to find
+     * @return the first index holding the value, or -1
+     */
+    public static int indexOf(long[] a, long value) {
+        return KERNELS.indexOf(a, value);
+    }
+
+    /**
+     * Returns the index of the first element equal ({@code ==}) to a value
+     *
+     * @param a the array to scan
+     * @param value the value to find
+     * @return the first index holding the value, or -1
+     */
+    public static int indexOf(double[] a, double value) {
+        return KERNELS.indexOf(a, value);
+    }
+
+    //***********
+    //*  Count  *
+    //***********
+
+    /**
+     * @return the number of elements equal to the value
+     */
+    public static int countMatches(int[] a, int value) {
+        return KERNELS.count(a, value);
+    }
+
+    /**
+     * @return the number of elements equal to the value
+     */
+    public static int countMatches(long[] a, long value) {
+        return KERNELS.count(a, value);
+    }
+
+    /**
+     * @return the number of elements equal ({@code ==}) to the value
+     */
+    public static int countMatches(double[] a, double value) {
+        return KERNELS.count(a, value);
+    }
+
+    //******************
+    //*  Contains any  *
+    //******************
+
+    /**
+     * @return true if any element of the array is one of the values
+     */
+    public static boolean containsAny(int[] a, int... values) {
+        return KERNELS.containsAny(a, values);
+    }
+
+    /**
+     * @return true if any element of the array is one of the values
+     */
+    public static boolean containsAny(long[] a, long... values) {
+        return KERNELS.containsAny(a, values);
+    }
+
+    /**
+     * @return true if any element of the array is equal ({@code ==}) to one of the values
+     */
+    public static boolean containsAny(double[] a, double... values) {
+        return KERNELS.containsAny(a, values);
+    }
+
+    //*****************
+    //*  Match masks  *
+    //*****************
+
+    /**
+     * Marks the elements equal to a value
+     *
+     * @param a the array to scan
+     * @param value the value to match
+     * @return a BitSet with bit {@code i} set when {@code a[i] == value}
+     */
+    public static BitSet matchMask(int[] a, int value) {
+        long[] words = new long[(a.length + 63) >>> 6];
+        KERNELS.mask(a, value, words);
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Marks the elements equal to a value
+     *
+     * @param a the array to scan
+     * @param value the value to match
+     * @return a BitSet with bit {@code i} set when {@code a[i] == value}
+     */
+    public static BitSet matchMask(long[] a, long value) {
+        long[] words = new long[(a.length + 63) >>> 6];
+        KERNELS.mask(a, value, words);
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Marks the elements equal ({@code ==}) to a value
+     *
+     * @param a the array to scan
+     * @param value the value to match
+     * @return a BitSet with bit {@code i} set when {@code a[i] == value}
+     */
+    public static BitSet matchMask(double[] a, double value) {
+        long[] words = new long[(a.length + 63) >>> 6];
+        KERNELS.mask(a, value, words);
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Marks the elements equal to a value into a caller-supplied mask, without allocating
+     *
+     * @param a the array to scan
+     * @param value the value to match
+     * @param mask the mask words, at least {@code (a.length + 63) / 64} long; bit {@code i} is word {@code i / 64}, bit {@code i % 64}
+     * @return the number of matches
+     */
+    public static int matchMask(int[] a, int value, long[] mask) {
+        clear(mask, a.length);
+        return KERNELS.mask(a, value, mask);
+    }
+
+    /**
+     * Marks the elements equal to a value into a caller-supplied mask, without allocating
+     *
+     * @param a the array to scan
+     * @param value the value to match
+     * @param mask the mask words, at least {@code (a.length + 63) / 64} long; bit {@code i} is word {@code i / 64}, bit {@code i % 64}
+     * @return the number of matches
+     */
+    public static int matchMask(long[] a, long value, long[] mask) {
+        clear(mask, a.length);
+        return KERNELS.mask(a, value, mask);
+    }
+
+    /**
+     * Marks the elements equal ({@code ==}) to a value into a caller-supplied mask, without allocating
+     *
+     * @param a the array to scan
+     * @param value the value to match
+     * @param mask the mask words, at least {@code (a.length + 63) / 64} long; bit {@code i} is word {@code i / 64}, bit {@code i % 64}
+     * @return the number of matches
+     */
+    public static int matchMask(double[] a, double value, long[] mask) {
+        clear(mask, a.length);
+        return KERNELS.mask(a, value, mask);
+    }
+
+    private static void clear(long[] mask, int length) {
+        int words = (length + 63) >>> 6;
+        if (mask.length < words) {
+            throw new IllegalArgumentException("mask too short: " + mask.length + " words for " + length + " elements");
+        }
+        Arrays.fill(mask, 0, words, 0L);
+    }
+
+    private static BulkKernels loadKernels() {
+        if (!Boolean.parseBoolean(System.getProperty("craftbox.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ScalarKernels();
+        }
+        try {
+            return (BulkKernels) Class.forName("com.maemlab.craftbox.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarKernels();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.maemlab.craftbox;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Coarse clock caching the formatted text of the current second and of the current day.
+ * <p>
+ * The text is rebuilt only when the second (or the day) changes; every other call is a volatile read and a
+ * comparison. Holders are immutable, so racing threads may rebuild the same second twice but never observe
+ * a torn value. A change of the default time zone is picked up at the next rebuild.
+ */
+final class CachedClock {
+    private static volatile SecondText second = new SecondText(Long.MIN_VALUE, null, null);
+    private static volatile DayText day = new DayText(Long.MIN_VALUE, Long.MIN_VALUE, null, null, null);
+
+    private record SecondText(long epochSecond, String timestamp, String compact) {
+    }
+
+    // The day is valid for epoch seconds in [from, until), which accounts for DST-shortened or lengthened days
+    private record DayText(long from, long until, String iso, String italian, String uk) {
+    }
+
+    private CachedClock() {}
+
+    /**
+     * @return the current date and time as yyyy-MM-dd HH:mm:ss
+     */
+    static String timestamp() {
+        return currentSecond().timestamp();
+    }
+
+    /**
+     * @return the current date and time as yyyyMMdd_HHmmss
+     */
+    static String compactTimestamp() {
+        return currentSecond().compact();
+    }
+
+    /**
+     * @return the current date as yyyy-MM-dd
+     */
+    static String isoDate() {
+        return currentDay().iso();
+    }
+
+    /**
+     * @return the current date as dd/MM/yyyy
+     */
+    static String italianDate() {
+        return currentDay().italian();
+    }
+
+    /**
+     * @return the current date as yyyy/MM/dd
+     */
+    static String ukDate() {
+        return currentDay().uk();
+    }
+
+    private static SecondText currentSecond() {
+        long now = Math.floorDiv(System.currentTimeMillis(), 1000);
+        SecondText cached = second;
+        if (cached.epochSecond() == now) {
+            return cached;
+        }
+        ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(now));
+        LocalDateTime dt = LocalDateTime.ofEpochSecond(now, 0, offset);
+        cached = new SecondText(now,
+                FixedDateTimeFormat.format(FixedDateTimeFormat.Layout.TIMESTAMP, dt),
+                FixedDateTimeFormat.format(FixedDateTimeFormat.Layout.COMPACT, dt));
+        second = cached;
+        return cached;
+    }
+
+    private static DayText currentDay() {
+        long now = Math.floorDiv(System.currentTimeMillis(), 1000);
+        DayText cached = day;
+        if (now >= cached.from() && now < cached.until()) {
+            return cached;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate date = LocalDate.ofInstant(Instant.ofEpochSecond(now), zone);
+        LocalDateTime midnight = date.atStartOfDay();
+        cached = new DayText(date.atStartOfDay(zone).toEpochSecond(), date.plusDays(1).atStartOfDay(zone).toEpochSecond(),
+                FixedDateTimeFormat.format(FixedDateTimeFormat.Layout.ISO_DATE, midnight),
+                FixedDateTimeFormat.format(FixedDateTimeFormat.Layout.ITALIAN_DATE, midnight),
+                FixedDateTimeFormat.format(FixedDateTimeFormat.Layout.UK_DATE, midnight));
+        day = cached;
+        return cached;
+    }
+}
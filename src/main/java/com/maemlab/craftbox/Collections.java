@@ -1,5 +1,9 @@
 package com.maemlab.craftbox;
 
+/**
+ * Membership helpers over varargs. To test many values against the same set, build a matcher once with
+ * {@link Matchers#of(int...)} and its overloads.
+ */
 public final class Collections {
 
 	private Collections() {}
@@ -0,0 +1,240 @@
+package com.maemlab.craftbox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Memory-compact, read-only store for the lines of a text file.
+ * <p>
+ * Instead of one {@code String} per line, the raw bytes of the file are kept in a single buffer, on or off heap,
+ * together with an {@code int} index of line offsets, so a resident file costs little more than its size on disk.
+ * Lines are decoded only when accessed: ASCII lines are returned as zero-copy {@link CharSequence} views over
+ * the buffer, other lines are decoded into a {@code String}.
+ * <p>
+ * Only charsets where a newline is the single byte {@code 0x0A} are supported, such as UTF-8 and ISO-8859-x.
+ * As with {@link FileOperations#readSmallTextFileToList(String)}, line terminators are not part of the lines.
+ * Files up to 2 GB are supported. Instances are immutable and thread-safe.
+ */
+public final class CompactLines {
+    private final ByteBuffer data;
+    // offsets[i] is where line i starts, offsets[size] is one past the end of the last line's terminator
+    private final int[] offsets;
+    private final int size;
+    private final Charset encoding;
+
+    private CompactLines(ByteBuffer data, int[] offsets, int size, Charset encoding) {
+        this.data = data;
+        this.offsets = offsets;
+        this.size = size;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Loads a UTF-8 file on heap
+     *
+     * @param file the file to load
+     * @return the lines of the file
+     * @throws IOException if an I/O error occurs reading the file or the file is larger than 2 GB
+     */
+    public static CompactLines load(Path file) throws IOException {
+        return load(file, StandardCharsets.UTF_8, false);
+    }
+
+    /**
+     * Loads a file
+     *
+     * @param file the file to load
+     * @param encoding the encoding of the file
+     * @param offHeap whether to keep the bytes in a direct buffer outside the Java heap
+     * @return the lines of the file
+     * @throws IOException if an I/O error occurs reading the file or the file is larger than 2 GB
+     */
+    public static CompactLines load(Path file, Charset encoding, boolean offHeap) throws IOException {
+        if (!Arrays.equals("\n".getBytes(encoding), new byte[] {'\n'})) {
+            throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+        }
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + file);
+            }
+            data = offHeap ? ByteBuffer.allocateDirect((int) length) : ByteBuffer.allocate((int) length);
+            while (data.hasRemaining() && channel.read(data) != -1) {
+                // Read fully
+            }
+            data.flip();
+        }
+        return index(data.asReadOnlyBuffer(), encoding);
+    }
+
+    private static CompactLines index(ByteBuffer data, Charset encoding) {
+        int limit = data.limit();
+        int[] offsets = new int[Math.max(16, limit / 32)];
+        int size = 0;
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (data.get(i) == '\n') {
+                if (size + 1 >= offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[size++] = lineStart;
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < limit) {
+            // Last line without terminator: pretend there is one past the end
+            if (size + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length + 2);
+            }
+            offsets[size++] = lineStart;
+            lineStart = limit + 1;
+        }
+        offsets[size] = lineStart;
+        return new CompactLines(data, Arrays.copyOf(offsets, size + 1), size, encoding);
+    }
+
+    /**
+     * @return the number of lines
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of bytes held, excluding the offset index
+     */
+    public int byteSize() {
+        return data.limit();
+    }
+
+    /**
+     * Returns a line, decoded on demand. ASCII lines are views over the underlying buffer and allocate nothing
+     * but the view itself.
+     *
+     * @param index the line number, starting from 0
+     * @return the line without its terminator
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public CharSequence line(int index) {
+        int start = start(index);
+        int end = end(index);
+        for (int i = start; i < end; i++) {
+            if (data.get(i) < 0) {
+                return decode(start, end);
+            }
+        }
+        return new AsciiView(data, start, end);
+    }
+
+    /**
+     * Returns a line as a String
+     *
+     * @param index the line number, starting from 0
+     * @return the line without its terminator
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public String lineAsString(int index) {
+        return decode(start(index), end(index));
+    }
+
+    /**
+     * Returns the length of a line in bytes, without decoding it
+     *
+     * @param index the line number, starting from 0
+     * @return the number of bytes of the line without its terminator
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int lineLength(int index) {
+        return end(index) - start(index);
+    }
+
+    /**
+     * Returns a List view of the lines, decoding each line as a String when accessed
+     *
+     * @return an unmodifiable list view
+     */
+    public List<String> asList() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return lineAsString(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int start(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Line " + index + " out of " + size);
+        }
+        return offsets[index];
+    }
+
+    private int end(int index) {
+        // Skip the '\n' and a preceding '\r'
+        int end = offsets[index + 1] - 1;
+        if (end > offsets[index] && data.get(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        data.get(start, bytes);
+        return new String(bytes, encoding);
+    }
+
+    private static final class AsciiView implements CharSequence {
+        private final ByteBuffer data;
+        private final int start;
+        private final int end;
+
+        AsciiView(ByteBuffer data, int start, int end) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) data.get(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("[" + from + ", " + to + ")");
+            }
+            return new AsciiView(data, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[end - start];
+            data.get(start, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
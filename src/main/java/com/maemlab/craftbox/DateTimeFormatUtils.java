@@ -3,6 +3,8 @@ package com.maemlab.craftbox;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 public final class DateTimeFormatUtils {
 
@@ -20,30 +22,33 @@ public final class DateTimeFormatUtils {
     //**********************
 
     /**
-     * Formats the current date and time into ISO_LOCAL_DATE format (yyyy-MM-dd)
+     * Formats the current date and time into ISO_LOCAL_DATE format (yyyy-MM-dd).
+     * The text is cached for the current day.
      *
      * @return the current date in ISO format
      */
     public static String formatNow() {
-        return formatNow(DateTimeFormatter.ISO_LOCAL_DATE);
+        return CachedClock.isoDate();
     }
 
     /**
-     * Formats the current date into Italian style (dd/MM/yyyy)
+     * Formats the current date into Italian style (dd/MM/yyyy).
+     * The text is cached for the current day.
      *
      * @return the current date in Italian format
      */
     public static String formatNowItalian() {
-        return formatNow(ITALIAN_DATE_FORMATTER);
+        return CachedClock.italianDate();
     }
 
     /**
-     * Formats the current date into UK style (yyyy/MM/dd)
+     * Formats the current date into UK style (yyyy/MM/dd).
+     * The text is cached for the current day.
      *
      * @return the current date in UK format
      */
     public static String formatNowUK() {
-        return formatNow(UK_DATE_FORMATTER);
+        return CachedClock.ukDate();
     }
 
     /**
@@ -72,12 +77,13 @@ public final class DateTimeFormatUtils {
     }
 
     /**
-     * Formats the current date and time as a timestamp (yyyy-MM-dd HH:mm:ss)
+     * Formats the current date and time as a timestamp (yyyy-MM-dd HH:mm:ss).
+     * The text is cached for the current second.
      *
      * @return the current timestamp
      */
     public static String nowToTimestamp() {
-        return LocalDateTime.now().format(TIMESTAMP_FORMATTER);
+        return CachedClock.timestamp();
     }
 
     //*********************
@@ -158,7 +164,13 @@ public final class DateTimeFormatUtils {
             return "";
         }
         // Handle both date and datetime strings by taking only the date part
-        String datePart = date.split(" ")[0];
+        int space = date.indexOf(' ');
+        String datePart = space < 0 ? date : date.substring(0, space);
+        var sb = new StringBuilder(FixedDateTimeFormat.Layout.ITALIAN_DATE.length());
+        if (FixedDateTimeParser.convert(datePart, FixedDateTimeFormat.Layout.ISO_DATE, FixedDateTimeFormat.Layout.ITALIAN_DATE, sb)) {
+            return sb.toString();
+        }
+        // Let the formatter report the error
         LocalDate localDate = LocalDate.parse(datePart, DateTimeFormatter.ISO_LOCAL_DATE);
         return localDate.format(ITALIAN_DATE_FORMATTER);
     }
@@ -173,12 +185,18 @@ public final class DateTimeFormatUtils {
         if (datetime == null || datetime.isBlank()) {
             return "";
         }
+        var sb = new StringBuilder(FixedDateTimeFormat.Layout.ITALIAN_DATETIME.length());
+        if (FixedDateTimeParser.convert(datetime, FixedDateTimeFormat.Layout.TIMESTAMP, FixedDateTimeFormat.Layout.ITALIAN_DATETIME, sb)) {
+            return sb.toString();
+        }
+        // Lenient inputs and errors are left to the formatter
         LocalDateTime localDateTime = LocalDateTime.parse(datetime, TIMESTAMP_FORMATTER);
         return localDateTime.format(ITALIAN_DATETIME_FORMATTER);
     }
 
     /**
-     * Parses an ISO date string (yyyy-MM-dd) into a LocalDate
+     * Parses an ISO date string (yyyy-MM-dd) into a LocalDate.
+     * To parse without exceptions see {@link FixedDateTimeParser}.
      *
      * @param date the date string to parse
      * @return the parsed LocalDate
@@ -188,6 +206,11 @@ public final class DateTimeFormatUtils {
         if (date == null) {
             throw new NullPointerException("localDate cannot be null");
         }
+        LocalDate parsed = FixedDateTimeParser.parseDate(date, FixedDateTimeFormat.Layout.ISO_DATE);
+        if (parsed != null) {
+            return parsed;
+        }
+        // Let the formatter report the error
         return LocalDate.parse(date, DateTimeFormatter.ISO_LOCAL_DATE);
     }
 
@@ -220,12 +243,13 @@ public final class DateTimeFormatUtils {
     }
 
     /**
-     * Format now epoch to compact timestamp
+     * Format now epoch to compact timestamp.
+     * The text is cached for the current second.
      *
      * @return the formatted string
      */
      public static String getCompactTimestamp() {
-        return COMPACT.format(LocalDateTime.now());
+        return CachedClock.compactTimestamp();
     }
 
     /**
@@ -238,4 +262,27 @@ public final class DateTimeFormatUtils {
         var dt = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
         return COMPACT.format(dt);
     }
+
+    /**
+     * Format many millisecond epochs to compact timestamps in the default time zone.
+     * The zone rules are looked up only when the values cross a DST transition.
+     *
+     * @param epochMillis the timestamps in milliseconds
+     * @return the formatted strings, in the same order
+     * @see EpochTimestampFormatter
+     */
+    public static String[] getCompactTimestamps(long[] epochMillis) {
+        return EpochTimestampFormatter.systemDefault(FixedDateTimeFormat.Layout.COMPACT).formatAll(epochMillis);
+    }
+
+    /**
+     * Format a stream of millisecond epochs to compact timestamps in the default time zone
+     *
+     * @param epochMillis the timestamps in milliseconds
+     * @return the stream of formatted strings
+     * @see EpochTimestampFormatter
+     */
+    public static Stream<String> getCompactTimestamps(LongStream epochMillis) {
+        return EpochTimestampFormatter.systemDefault(FixedDateTimeFormat.Layout.COMPACT).formatAll(epochMillis);
+    }
 }
\ No newline at end of file
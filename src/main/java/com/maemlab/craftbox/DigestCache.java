@@ -0,0 +1,229 @@
+package com.maemlab.craftbox;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional cache in front of {@link DigestUtils#calculateDigest(Path, String)}.
+ * A result is reused as long as the file keeps the same size, last-modified time and file key (inode),
+ * otherwise the file is hashed again. The least recently used entries are evicted once the cache
+ * holds more than its maximum number of entries. The cache can be saved to and loaded from a compact
+ * binary file so that results survive restarts.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class DigestCache {
+    private static final int MAGIC = 0x44474348; // "DGCH"
+    private static final int VERSION = 1;
+
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private record Key(String path, String algorithm) {
+    }
+
+    /**
+     * The last-modified time is kept at the full precision of the file system (nanoseconds on most of them),
+     * so a rewrite within the same millisecond is still noticed
+     */
+    private record Entry(long size, long lastModifiedNanos, String fileKey, byte[] digest) {
+        boolean matches(BasicFileAttributes attrs) {
+            return size == attrs.size()
+                    && lastModifiedNanos == nanosOf(attrs.lastModifiedTime())
+                    && fileKey.equals(fileKeyOf(attrs));
+        }
+    }
+
+    /**
+     * Creates an empty cache
+     *
+     * @param maxEntries the maximum number of entries kept before evicting the least recently used ones
+     */
+    public DigestCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > DigestCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Creates a cache and fills it from a file previously written by {@link #save(Path)}.
+     * A missing file, or one written in another format version, yields an empty cache.
+     *
+     * @param cacheFile the cache file
+     * @param maxEntries the maximum number of entries kept before evicting the least recently used ones
+     * @return the loaded cache
+     * @throws IOException if an I/O error occurs or the file is not a valid cache file
+     */
+    public static DigestCache load(Path cacheFile, int maxEntries) throws IOException {
+        var cache = new DigestCache(maxEntries);
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a digest cache file: " + cacheFile);
+            }
+            if (in.readInt() != VERSION) {
+                // Entries of another format are hashed again
+                return cache;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                var key = new Key(in.readUTF(), in.readUTF());
+                long size = in.readLong();
+                long lastModifiedNanos = in.readLong();
+                String fileKey = in.readUTF();
+                byte[] digest = new byte[in.readUnsignedByte()];
+                in.readFully(digest);
+                cache.put(key, new Entry(size, lastModifiedNanos, fileKey, digest));
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing saved yet
+        }
+        return cache;
+    }
+
+    /**
+     * Writes the cache to a file, replacing it atomically once its content is on disk.
+     * Entries are written from the least to the most recently used, so loading preserves the LRU order.
+     *
+     * @param cacheFile the cache file
+     * @throws IOException if an I/O error occurs writing the file
+     */
+    public void save(Path cacheFile) throws IOException {
+        List<Map.Entry<Key, Entry>> snapshot;
+        synchronized (entries) {
+            snapshot = new ArrayList<>(entries.entrySet());
+        }
+        Path parent = cacheFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<Key, Entry> e : snapshot) {
+                    out.writeUTF(e.getKey().path());
+                    out.writeUTF(e.getKey().algorithm());
+                    out.writeLong(e.getValue().size());
+                    out.writeLong(e.getValue().lastModifiedNanos());
+                    out.writeUTF(e.getValue().fileKey());
+                    out.writeByte(e.getValue().digest().length);
+                    out.write(e.getValue().digest());
+                }
+                out.flush();
+                // Without it a crash after the rename could leave an empty or partial cache file
+                channel.force(false);
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            FileOperations.syncDirectory(parent);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Returns the hex digest of the file, from the cache if the file did not change since it was last hashed
+     *
+     * @param file the file to hash
+     * @param algorithm the digest algorithm (e.g. SHA-256)
+     * @return the hex digest
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @throws IOException if an I/O error occurs reading the file or its attributes
+     */
+    public String calculateDigest(Path file, String algorithm) throws NoSuchAlgorithmException, IOException {
+        Path absolute = file.toAbsolutePath().normalize();
+        var key = new Key(absolute.toString(), algorithm);
+        BasicFileAttributes attrs = Files.readAttributes(absolute, BasicFileAttributes.class);
+
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null && cached.matches(attrs)) {
+            hits.increment();
+            return DigestUtils.appendHex(cached.digest(), new StringBuilder(cached.digest().length * 2)).toString();
+        }
+
+        misses.increment();
+        byte[] digest = DigestUtils.calculateDigestBytes(absolute, algorithm);
+        put(key, new Entry(attrs.size(), nanosOf(attrs.lastModifiedTime()), fileKeyOf(attrs), digest));
+        return DigestUtils.appendHex(digest, new StringBuilder(digest.length * 2)).toString();
+    }
+
+    /**
+     * Removes every entry and resets the counters
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * @return the number of entries currently cached
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that required hashing the file
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    private void put(Key key, Entry entry) {
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    private static String fileKeyOf(BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        return fileKey == null ? "" : fileKey.toString();
+    }
+
+    private static long nanosOf(FileTime time) {
+        return time.to(TimeUnit.NANOSECONDS);
+    }
+}
@@ -1,34 +1,467 @@
 package com.maemlab.craftbox;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
 
 public final class DigestUtils {
+    private static final byte FILE_NODE = 'f';
+    private static final byte DIR_NODE = 'd';
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // Files at least this large are memory-mapped, smaller ones are read into a direct buffer
+    private static final long MAP_THRESHOLD = 1L << 20;
+    // Size of each mapped region, large enough to amortize the mapping cost
+    private static final long MAP_CHUNK = 64L << 20;
+    private static final int DIRECT_BUFFER_SIZE = 256 * 1024;
+    private static final int MULTI_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> DIRECT_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE));
+
     private DigestUtils() {}
 
     /**
      * Compute hex digest (e.g. SHA-256) of the given file
      */
     public static String calculateDigest(Path file, String algorithm) throws NoSuchAlgorithmException, IOException {
+        return toHex(calculateDigestBytes(file, algorithm));
+    }
+
+    /**
+     * Raw digest of the given file, for callers that keep the bytes rather than the hex string
+     */
+    static byte[] calculateDigestBytes(Path file, String algorithm) throws NoSuchAlgorithmException, IOException {
         var md = MessageDigest.getInstance(algorithm);
+        return IoProbe.measure(IoMetrics.Operation.DIGEST, file, probe -> {
+            byte[] digest = digest(file, md, probe);
+            probe.files(1);
+            return digest;
+        });
+    }
+
+    /**
+     * Compute hex digest (e.g. SHA-256) of the given file through a FileChannel.
+     * Large files are memory-mapped in 64 MB regions and fed to the digest without copying them
+     * to the heap, smaller files are read into a reusable direct buffer.
+     *
+     * @param file the file to hash
+     * @param algorithm the digest algorithm (e.g. SHA-256)
+     * @return the hex digest
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    public static String calculateDigestMapped(Path file, String algorithm) throws NoSuchAlgorithmException, IOException {
+        var md = MessageDigest.getInstance(algorithm);
+        updateMapped(file, md);
+        return toHex(md.digest());
+    }
+
+    /**
+     * Compute the raw digest of the given file through a FileChannel, writing it into a caller-supplied buffer.
+     * The digest is reset before use, so the same instance can be reused across files without allocating.
+     *
+     * @param file the file to hash
+     * @param md the digest to use
+     * @param out the buffer receiving the digest
+     * @param offset the offset in the buffer where the digest starts
+     * @return the number of bytes written into the buffer
+     * @throws IOException if an I/O error occurs reading the file
+     * @throws DigestException if the buffer is too small for the digest
+     */
+    public static int calculateDigestMapped(Path file, MessageDigest md, byte[] out, int offset) throws IOException, DigestException {
+        md.reset();
+        updateMapped(file, md);
+        return md.digest(out, offset, md.getDigestLength());
+    }
+
+    /**
+     * Writes the lowercase hex representation of the given bytes into a char array
+     *
+     * @param bytes the bytes to encode
+     * @param dst the destination array, must have room for {@code bytes.length * 2} chars
+     * @param offset the offset in the destination array
+     * @return the number of chars written
+     */
+    public static int toHex(byte[] bytes, char[] dst, int offset) {
+        int j = offset;
+        for (byte b : bytes) {
+            dst[j++] = HEX_DIGITS[(b >> 4) & 0x0F];
+            dst[j++] = HEX_DIGITS[b & 0x0F];
+        }
+        return j - offset;
+    }
+
+    /**
+     * Appends the lowercase hex representation of the given bytes to a StringBuilder
+     *
+     * @param bytes the bytes to encode
+     * @param sb the StringBuilder to append to
+     * @return the same StringBuilder
+     */
+    public static StringBuilder appendHex(byte[] bytes, StringBuilder sb) {
+        for (byte b : bytes) {
+            sb.append(HEX_DIGITS[(b >> 4) & 0x0F]).append(HEX_DIGITS[b & 0x0F]);
+        }
+        return sb;
+    }
+
+    /**
+     * Result of a directory digest: the Merkle root of the tree and the hash of every subdirectory.
+     *
+     * @param root the hex digest of the whole tree
+     * @param directories the hex digest of each directory, keyed by its path relative to the root
+     *                    (the root itself is keyed by the empty path)
+     */
+    public record DirectoryDigest(String root, Map<Path, String> directories) {
+    }
+
+    /**
+     * Compute a Merkle digest of a directory tree, hashing files in parallel on the common fork-join pool.
+     * Each directory hash covers the sorted names, types and hashes of its entries, so the result
+     * does not depend on the order in which the file system returns them.
+     *
+     * @param dir the root directory
+     * @param algorithm the digest algorithm (e.g. SHA-256)
+     * @return the root digest and the digest of every subdirectory
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @throws IOException if an I/O error occurs while walking or reading the tree
+     */
+    public static DirectoryDigest calculateDirectoryDigest(Path dir, String algorithm) throws NoSuchAlgorithmException, IOException {
+        return calculateDirectoryDigest(dir, algorithm, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute a Merkle digest of a directory tree using the given fork-join pool
+     *
+     * @param dir the root directory
+     * @param algorithm the digest algorithm (e.g. SHA-256)
+     * @param pool the pool running the per-directory and per-file tasks
+     * @return the root digest and the digest of every subdirectory
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     * @throws IOException if an I/O error occurs while walking or reading the tree
+     */
+    public static DirectoryDigest calculateDirectoryDigest(Path dir, String algorithm, ForkJoinPool pool) throws NoSuchAlgorithmException, IOException {
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("Not a directory: " + dir);
+        }
+        // Fail fast on an unknown algorithm instead of inside the tasks
+        MessageDigest.getInstance(algorithm);
+
+        Map<Path, String> directories = new ConcurrentHashMap<>();
+        try {
+            byte[] root = pool.invoke(new DirectoryTask(dir, dir, algorithm, directories));
+            return new DirectoryDigest(toHex(root), java.util.Collections.unmodifiableSortedMap(new TreeMap<>(directories)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class DirectoryTask extends RecursiveTask<byte[]> {
+        private final Path root;
+        private final Path dir;
+        private final String algorithm;
+        private final Map<Path, String> directories;
+
+        DirectoryTask(Path root, Path dir, String algorithm, Map<Path, String> directories) {
+            this.root = root;
+            this.dir = dir;
+            this.algorithm = algorithm;
+            this.directories = directories;
+        }
+
+        @Override
+        protected byte[] compute() {
+            List<Path> entries;
+            try (Stream<Path> stream = Files.list(dir)) {
+                entries = stream.sorted().toList();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            List<RecursiveTask<byte[]>> children = new ArrayList<>(entries.size());
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    children.add(new DirectoryTask(root, entry, algorithm, directories));
+                } else if (Files.isRegularFile(entry)) {
+                    children.add(new FileTask(entry, algorithm));
+                } else {
+                    children.add(null);
+                }
+            }
+            invokeAll(children.stream().filter(Objects::nonNull).toList());
+
+            var md = newDigest(algorithm);
+            for (int i = 0; i < entries.size(); i++) {
+                RecursiveTask<byte[]> child = children.get(i);
+                if (child == null) {
+                    continue;
+                }
+                md.update(child instanceof DirectoryTask ? DIR_NODE : FILE_NODE);
+                md.update(entries.get(i).getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+                md.update(child.join());
+            }
+            byte[] hash = md.digest();
+            directories.put(root.relativize(dir), toHex(hash));
+            return hash;
+        }
+    }
+
+    private static final class FileTask extends RecursiveTask<byte[]> {
+        private final Path file;
+        private final String algorithm;
+
+        FileTask(Path file, String algorithm) {
+            this.file = file;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        protected byte[] compute() {
+            try {
+                return digest(file, newDigest(algorithm), IoProbe.NONE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Digests computed for one file of a batch
+     *
+     * @param file the file
+     * @param digests the hex digest for each requested algorithm, in request order; empty if the file could not be read
+     * @param error the error that prevented reading the file, or null on success
+     */
+    public record FileDigests(Path file, Map<String, String> digests, IOException error) {
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Compute several digests of a file reading it only once.
+     * Besides any MessageDigest algorithm, the checksums CRC32, CRC32C and Adler32 are supported.
+     *
+     * @param file the file to hash
+     * @param algorithms the algorithms (e.g. SHA-256, MD5, CRC32C)
+     * @return the hex digest for each algorithm, in request order
+     * @throws NoSuchAlgorithmException if an algorithm is not available
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    public static Map<String, String> calculateDigests(Path file, String... algorithms) throws NoSuchAlgorithmException, IOException {
+        List<String> list = List.of(algorithms);
+        checkAlgorithms(list);
+        return digestAll(file, list, new byte[MULTI_BUFFER_SIZE]);
+    }
+
+    /**
+     * Compute several digests for each file of a batch, reading every file only once.
+     * At most {@code maxConcurrentReads} files are read at the same time on the given executor;
+     * each result is handed to {@code onResult} as soon as its file is done, in completion order.
+     * A file that cannot be read does not stop the batch, its result carries the error instead.
+     * <p>
+     * With Java 21 or later a virtual-thread executor
+     * ({@code Executors.newVirtualThreadPerTaskExecutor()}) is a good fit.
+     *
+     * @param files the files to hash
+     * @param algorithms the algorithms (e.g. SHA-256, MD5, CRC32C)
+     * @param maxConcurrentReads the maximum number of files read concurrently
+     * @param executor the executor running the reads
+     * @param onResult the callback receiving each result, possibly from several threads at once
+     * @return a future completing when every file has been processed
+     * @throws NoSuchAlgorithmException if an algorithm is not available
+     */
+    public static CompletableFuture<Void> calculateDigests(Collection<Path> files, List<String> algorithms, int maxConcurrentReads,
+                                                           Executor executor, Consumer<FileDigests> onResult) throws NoSuchAlgorithmException {
+        if (maxConcurrentReads <= 0) {
+            throw new IllegalArgumentException("maxConcurrentReads must be positive");
+        }
+        checkAlgorithms(algorithms);
+        List<String> algs = List.copyOf(algorithms);
+
+        // A fixed number of workers draining a shared queue bounds the I/O concurrency without parking threads
+        Queue<Path> pending = new ConcurrentLinkedQueue<>(files);
+        int workers = Math.min(maxConcurrentReads, Math.max(1, files.size()));
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                byte[] buffer = new byte[MULTI_BUFFER_SIZE];
+                Path file;
+                while ((file = pending.poll()) != null) {
+                    FileDigests result;
+                    try {
+                        result = new FileDigests(file, digestAll(file, algs, buffer), null);
+                    } catch (IOException e) {
+                        result = new FileDigests(file, Map.of(), e);
+                    }
+                    onResult.accept(result);
+                }
+            }, executor);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Compute several digests for each file of a batch on a dedicated pool of {@code maxConcurrentReads} threads,
+     * blocking until every file has been processed
+     *
+     * @param files the files to hash
+     * @param algorithms the algorithms (e.g. SHA-256, MD5, CRC32C)
+     * @param maxConcurrentReads the maximum number of files read concurrently
+     * @param onResult the callback receiving each result, possibly from several threads at once
+     * @throws NoSuchAlgorithmException if an algorithm is not available
+     */
+    public static void calculateDigests(Collection<Path> files, List<String> algorithms, int maxConcurrentReads,
+                                        Consumer<FileDigests> onResult) throws NoSuchAlgorithmException {
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrentReads, r -> {
+            Thread t = new Thread(r, "craftbox-digest");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            calculateDigests(files, algorithms, maxConcurrentReads, executor, onResult).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void checkAlgorithms(List<String> algorithms) throws NoSuchAlgorithmException {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("At least one algorithm is required");
+        }
+        for (String algorithm : algorithms) {
+            if (newChecksum(algorithm) == null) {
+                MessageDigest.getInstance(algorithm);
+            }
+        }
+    }
+
+    private static Checksum newChecksum(String algorithm) {
+        return switch (algorithm.toUpperCase(Locale.ROOT)) {
+            case "CRC32" -> new CRC32();
+            case "CRC32C" -> new CRC32C();
+            case "ADLER32" -> new Adler32();
+            default -> null;
+        };
+    }
+
+    private static Map<String, String> digestAll(Path file, List<String> algorithms, byte[] buffer) throws IOException {
+        int n = algorithms.size();
+        MessageDigest[] digests = new MessageDigest[n];
+        Checksum[] checksums = new Checksum[n];
+        for (int i = 0; i < n; i++) {
+            checksums[i] = newChecksum(algorithms.get(i));
+            if (checksums[i] == null) {
+                digests[i] = newDigest(algorithms.get(i));
+            }
+        }
+
+        try (InputStream is = Files.newInputStream(file)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                for (int i = 0; i < n; i++) {
+                    if (digests[i] != null) {
+                        digests[i].update(buffer, 0, read);
+                    } else {
+                        checksums[i].update(buffer, 0, read);
+                    }
+                }
+            }
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            result.put(algorithms.get(i), digests[i] != null ? toHex(digests[i].digest()) : checksumToHex(checksums[i].getValue()));
+        }
+        return java.util.Collections.unmodifiableMap(result);
+    }
+
+    private static String checksumToHex(long value) {
+        char[] chars = new char[8];
+        for (int i = 7; i >= 0; i--) {
+            chars[i] = HEX_DIGITS[(int) (value & 0x0F)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // Already validated by the caller
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] digest(Path file, MessageDigest md, IoProbe probe) throws IOException {
         try (var dis = new DigestInputStream(Files.newInputStream(file), md)) {
             // Read fully to update digest
             byte[] buffer = new byte[8192];
-            while (dis.read(buffer) != -1){}
+            int n;
+            while ((n = dis.read(buffer)) != -1) {
+                probe.read(n);
+            }
         }
-        byte[] hash = md.digest();
-        return toHex(hash);
+        return md.digest();
     }
 
-    private static String toHex(byte[] hash) {
-        var sb = new StringBuilder(hash.length * 2);
-        for (byte b : hash) {
-            sb.append(String.format("%02x", b));
+    private static void updateMapped(Path file, MessageDigest md) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAP_THRESHOLD) {
+                for (long position = 0; position < size; position += MAP_CHUNK) {
+                    md.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK, size - position)));
+                }
+            } else {
+                ByteBuffer buffer = DIRECT_BUFFER.get();
+                buffer.clear();
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    md.update(buffer);
+                    buffer.clear();
+                }
+            }
         }
-        return sb.toString();
+    }
+
+    private static String toHex(byte[] hash) {
+        char[] chars = new char[hash.length * 2];
+        toHex(hash, chars, 0);
+        return new String(chars);
     }
 }
@@ -0,0 +1,21 @@
+package com.maemlab.craftbox;
+
+/**
+ * Lookup tables of the two ASCII digits of the numbers 0 to 99, shared by the hand-written formatters
+ * ({@link FixedDateTimeFormat}, {@link NumberPadding}) so that digits are written two at a time.
+ */
+final class DigitPairs {
+    /** Tens digit of the index */
+    static final char[] TENS = new char[100];
+    /** Ones digit of the index */
+    static final char[] ONES = new char[100];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            TENS[i] = (char) ('0' + i / 10);
+            ONES[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private DigitPairs() {}
+}
@@ -0,0 +1,425 @@
+package com.maemlab.craftbox;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live index of the regular files of a directory tree, for code that lists the same tree over and over.
+ * <p>
+ * The tree is walked once when the index is opened; from then on a {@link WatchService} registered on every
+ * directory keeps the index current as files are created, deleted or renamed. The watch service may lose events
+ * (it reports an overflow, or the platform simply coalesces them), so the tree is also walked again periodically
+ * and after each overflow, and the index is corrected with the differences.
+ * <p>
+ * The watch service only sees changes made through the local kernel: on network file systems (e.g. NFS), where
+ * Linux inotify does not report changes made by other clients, those changes show up at the next periodic rescan.
+ * Keep the rescan interval as short as the freshness needed on such volumes.
+ * <p>
+ * Files are kept in sorted maps keyed by path, one for the whole tree and one per extension, so queries return
+ * in time proportional to the number of files returned rather than to the size of the tree, and never touch the
+ * disk. Results are sorted like those of {@link FileOperations#listFiles(Path)}. Queries are lock-free and may run
+ * concurrently with updates, in which case they see each file either before or after its change.
+ *
+ * <pre>{@code
+ * try (var index = DirectoryIndex.open(Path.of("inbox"))) {
+ *     ...
+ *     List<File> pending = index.listFilesByExtension(".json");
+ * }
+ * }</pre>
+ */
+public final class DirectoryIndex implements Closeable {
+    private static final Duration DEFAULT_RESCAN_INTERVAL = Duration.ofMinutes(1);
+
+    private final Path root;
+    private final String rootPrefix;
+    private final long rescanNanos;
+    private final WatchService watchService;
+    private final Thread watcher;
+    private volatile boolean closed;
+
+    // All the files by path, the files by extension (from the last dot, "" if none), the watched directories
+    private final ConcurrentSkipListMap<String, File> files = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<String, File>> byExtension = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, WatchKey> directories = new ConcurrentSkipListMap<>();
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+
+    private DirectoryIndex(Path root, Duration rescanInterval, WatchService watchService) {
+        this.root = root;
+        this.rootPrefix = root.toString().endsWith(File.separator) ? root.toString() : root + File.separator;
+        this.rescanNanos = rescanInterval.isZero() || rescanInterval.isNegative() ? 0 : rescanInterval.toNanos();
+        this.watchService = watchService;
+        this.watcher = new Thread(this::watch, "craftbox-index-" + root.getFileName());
+        this.watcher.setDaemon(true);
+    }
+
+    /**
+     * Indexes a directory tree and starts watching it, with a full rescan every minute
+     *
+     * @param dir the root of the tree
+     * @return the index, to be closed when no longer needed
+     * @throws IOException if the directory cannot be read or watched
+     */
+    public static DirectoryIndex open(Path dir) throws IOException {
+        return open(dir, DEFAULT_RESCAN_INTERVAL);
+    }
+
+    /**
+     * Indexes a directory tree and starts watching it
+     *
+     * @param dir the root of the tree
+     * @param rescanInterval the time between two full rescans, zero to rescan only after an overflow
+     * @return the index, to be closed when no longer needed
+     * @throws IOException if the directory cannot be read or watched
+     */
+    public static DirectoryIndex open(Path dir, Duration rescanInterval) throws IOException {
+        Path absolute = dir.toAbsolutePath().normalize();
+        if (!Files.isDirectory(absolute)) {
+            throw new IOException("Not a directory: " + absolute);
+        }
+        WatchService ws = absolute.getFileSystem().newWatchService();
+        var index = new DirectoryIndex(absolute, rescanInterval, ws);
+        try {
+            index.rescan();
+        } catch (IOException | RuntimeException e) {
+            ws.close();
+            throw e;
+        }
+        index.watcher.start();
+        return index;
+    }
+
+    /**
+     * @return the absolute root of the indexed tree
+     */
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * @return the number of files in the index
+     */
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * @param file a file, absolute or relative to the working directory
+     * @return true if the file is in the index
+     */
+    public boolean contains(Path file) {
+        return files.containsKey(file.toAbsolutePath().normalize().toString());
+    }
+
+    /**
+     * Lists all the files of the tree, like {@link FileOperations#listFiles(Path)}
+     *
+     * @return a sorted list of all the regular files in the tree
+     */
+    public List<File> listFiles() {
+        return List.copyOf(files.values());
+    }
+
+    /**
+     * Lists the files of a subdirectory and its subdirectories
+     *
+     * @param dir a directory in the tree, absolute or relative to the working directory
+     * @return a sorted list of the regular files under the directory, empty if it is not in the tree
+     */
+    public List<File> listFiles(Path dir) {
+        Path absolute = dir.toAbsolutePath().normalize();
+        if (absolute.equals(root)) {
+            return listFiles();
+        }
+        return collect(files, absolute + File.separator, "");
+    }
+
+    /**
+     * Lists the files with a name ending with the extension, like
+     * {@link FileOperations#listFilesByExtension(Path, String)}. Extensions with a dot (e.g. ".txt", ".tar.gz")
+     * are answered from the per-extension index; without a dot every file has to be checked.
+     *
+     * @param extension the end of the file name (e.g., ".txt", ".java")
+     * @return a sorted list of the regular files with the extension
+     */
+    public List<File> listFilesByExtension(String extension) {
+        int dot = extension.lastIndexOf('.');
+        if (dot < 0) {
+            return collect(files, rootPrefix, extension);
+        }
+        // A name ending with the extension has the same text after its last dot
+        ConcurrentSkipListMap<String, File> bucket = byExtension.get(extension.substring(dot));
+        if (bucket == null) {
+            return List.of();
+        }
+        return dot == 0 ? List.copyOf(bucket.values()) : collect(bucket, rootPrefix, extension);
+    }
+
+    /**
+     * Lists the files whose path relative to the root starts with a prefix
+     *
+     * @param prefix the start of the relative path, with the platform separator (e.g., "2024/05/report-")
+     * @return a sorted list of the matching regular files
+     */
+    public List<File> listFilesByPrefix(String prefix) {
+        return collect(files, rootPrefix + prefix, "");
+    }
+
+    /**
+     * Walks the whole tree again and corrects the index with the differences. This is done periodically and after
+     * the watch service reports lost events; call it after changes that must be visible immediately.
+     *
+     * @throws IOException if the root cannot be read
+     */
+    public synchronized void rescan() throws IOException {
+        Set<String> found = new HashSet<>();
+        Set<String> foundDirectories = new HashSet<>();
+        walk(root, found, foundDirectories);
+        for (String path : new ArrayList<>(files.keySet())) {
+            if (!found.contains(path)) {
+                remove(path);
+            }
+        }
+        for (String dir : new ArrayList<>(directories.keySet())) {
+            if (!foundDirectories.contains(dir)) {
+                unwatch(dir);
+            }
+        }
+    }
+
+    /**
+     * Stops watching the tree. The index remains readable in the state it had.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    //***************
+    //*  Internals  *
+    //***************
+
+    /**
+     * Walks a directory, adding its files and watching its subdirectories
+     */
+    private void walk(Path start, Set<String> found, Set<String> foundDirectories) throws IOException {
+        IoProbe.measure(IoMetrics.Operation.LIST, start, probe -> {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    String key = dir.toString();
+                    WatchKey watched = directories.get(key);
+                    // A key is invalid once its directory is gone, and is taken over by the new path of a moved one
+                    if (!closed && (watched == null || !watched.isValid() || !dir.equals(keys.get(watched)))) {
+                        watch(dir);
+                    }
+                    if (foundDirectories != null) {
+                        foundDirectories.add(key);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    // Links to regular files are listed, as with Files.isRegularFile
+                    if (attrs.isRegularFile() || (attrs.isSymbolicLink() && Files.isRegularFile(file))) {
+                        String key = add(file);
+                        if (found != null) {
+                            found.add(key);
+                        }
+                        probe.files(1);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                    // Entries can vanish while walking, only the start itself must be readable
+                    if (file.equals(start)) {
+                        throw e;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Registers a directory. The watch service identifies directories by file, not by path (inotify returns the
+     * key already held for the same inode), so after a move the key of the old path now reports for the new one.
+     */
+    private void watch(Path dir) throws IOException {
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        keys.put(key, dir);
+        WatchKey previous = directories.put(dir.toString(), key);
+        if (previous != null && previous != key && dir.equals(keys.get(previous))) {
+            keys.remove(previous);
+            previous.cancel();
+        }
+    }
+
+    /**
+     * Forgets a directory path, cancelling its key unless the key was taken over by another path
+     */
+    private void unwatch(String dir) {
+        WatchKey key = directories.remove(dir);
+        if (key == null) {
+            return;
+        }
+        Path owner = keys.get(key);
+        if (owner == null || owner.toString().equals(dir)) {
+            keys.remove(key);
+            key.cancel();
+        }
+    }
+
+    private String add(Path file) {
+        String key = file.toString();
+        File f = file.toFile();
+        files.put(key, f);
+        byExtension.computeIfAbsent(extension(file), e -> new ConcurrentSkipListMap<>()).put(key, f);
+        return key;
+    }
+
+    private void remove(String key) {
+        if (files.remove(key) != null) {
+            ConcurrentSkipListMap<String, File> bucket = byExtension.get(extension(Path.of(key)));
+            if (bucket != null) {
+                bucket.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Drops a deleted directory: its files, its own watch key and those of its subdirectories
+     */
+    private void removeTree(Path dir) {
+        String prefix = dir + File.separator;
+        for (String key : new ArrayList<>(range(files, prefix).keySet())) {
+            remove(key);
+        }
+        for (String subdir : new ArrayList<>(range(directories, prefix).keySet())) {
+            unwatch(subdir);
+        }
+        unwatch(dir.toString());
+    }
+
+    private synchronized void apply(Path dir, WatchEvent<?> event) throws IOException {
+        Path child = dir.resolve((Path) event.context());
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+            if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                // Files may have been created in it before it was watched
+                walk(child, null, null);
+            } else if (Files.isRegularFile(child)) {
+                add(child);
+            }
+        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            remove(child.toString());
+            removeTree(child);
+        }
+    }
+
+    private void watch() {
+        long nextRescan = System.nanoTime() + rescanNanos;
+        try {
+            while (true) {
+                WatchKey key;
+                if (rescanNanos == 0) {
+                    key = watchService.take();
+                } else {
+                    long wait = nextRescan - System.nanoTime();
+                    key = wait > 0 ? watchService.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+                boolean lost = key == null;
+                if (key != null) {
+                    Path dir = keys.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            lost = true;
+                        } else if (dir != null) {
+                            try {
+                                apply(dir, event);
+                            } catch (IOException | RuntimeException e) {
+                                // Could not follow the change, the rescan will
+                                lost = true;
+                            }
+                        }
+                    }
+                    if (!key.reset() && dir != null) {
+                        // The directory is gone or no longer accessible, unless it was already recreated
+                        synchronized (this) {
+                            if (directories.get(dir.toString()) == key) {
+                                removeTree(dir);
+                            } else {
+                                keys.remove(key);
+                            }
+                        }
+                    }
+                }
+                if (lost) {
+                    try {
+                        rescan();
+                    } catch (IOException | RuntimeException e) {
+                        // Keep the index as it is, the next rescan will retry
+                    }
+                    nextRescan = System.nanoTime() + rescanNanos;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Copies the values of the keys starting with a prefix, keeping those whose key ends with a suffix
+     */
+    private static List<File> collect(ConcurrentSkipListMap<String, File> map, String prefix, String suffix) {
+        List<File> result = new ArrayList<>();
+        for (Map.Entry<String, File> e : range(map, prefix).entrySet()) {
+            if (e.getKey().endsWith(suffix)) {
+                result.add(e.getValue());
+            }
+        }
+        return java.util.Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The entries of a sorted map whose key starts with a prefix
+     */
+    private static <V> NavigableMap<String, V> range(ConcurrentSkipListMap<String, V> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot);
+    }
+}
@@ -0,0 +1,187 @@
+package com.maemlab.craftbox;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Objects;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import com.maemlab.craftbox.FixedDateTimeFormat.Layout;
+
+/**
+ * Formats epoch milliseconds into one of the fixed layouts of {@link FixedDateTimeFormat}, one value or
+ * millions at a time.
+ * <p>
+ * The zone offset is cached together with the interval between the surrounding transitions, so the zone rules
+ * are consulted only when a value falls outside it (e.g. across a DST change). The calendar fields are then
+ * computed with plain integer arithmetic, without creating any {@code Instant} or {@code LocalDateTime}.
+ * Instances are immutable apart from that cache and are thread-safe.
+ */
+public final class EpochTimestampFormatter {
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private final ZoneRules rules;
+    private final Layout layout;
+    private OffsetWindow window = new OffsetWindow(0, 0, 0);
+
+    // Offset valid for epoch seconds in [from, until); immutable so that racing threads never see a torn window
+    private record OffsetWindow(long from, long until, int offsetSeconds) {
+    }
+
+    /**
+     * Creates a formatter
+     *
+     * @param zone the time zone of the formatted values
+     * @param layout the layout
+     */
+    public EpochTimestampFormatter(ZoneId zone, Layout layout) {
+        this.rules = zone.getRules();
+        this.layout = Objects.requireNonNull(layout);
+    }
+
+    /**
+     * Creates a formatter for the current default time zone
+     *
+     * @param layout the layout
+     * @return the formatter
+     */
+    public static EpochTimestampFormatter systemDefault(Layout layout) {
+        return new EpochTimestampFormatter(ZoneId.systemDefault(), layout);
+    }
+
+    /**
+     * @return the number of characters of each formatted value
+     */
+    public int length() {
+        return layout.length();
+    }
+
+    /**
+     * Formats a value into a String
+     *
+     * @param epochMillis the timestamp in milliseconds
+     * @return the formatted string
+     */
+    public String format(long epochMillis) {
+        char[] chars = new char[layout.length()];
+        format(epochMillis, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Formats a value into a char array
+     *
+     * @param epochMillis the timestamp in milliseconds
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of chars written
+     */
+    public int format(long epochMillis, char[] dst, int offset) {
+        long local = toLocalSecond(epochMillis);
+        long date = civil(Math.floorDiv(local, SECONDS_PER_DAY));
+        int secondOfDay = Math.floorMod(local, SECONDS_PER_DAY);
+        return FixedDateTimeFormat.format(layout, (int) (date >> 9), (int) (date >> 5) & 0x0F, (int) date & 0x1F,
+                secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, dst, offset);
+    }
+
+    /**
+     * Formats a value into a byte array as ASCII
+     *
+     * @param epochMillis the timestamp in milliseconds
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of bytes written
+     */
+    public int format(long epochMillis, byte[] dst, int offset) {
+        long local = toLocalSecond(epochMillis);
+        long date = civil(Math.floorDiv(local, SECONDS_PER_DAY));
+        int secondOfDay = Math.floorMod(local, SECONDS_PER_DAY);
+        return FixedDateTimeFormat.format(layout, (int) (date >> 9), (int) (date >> 5) & 0x0F, (int) date & 0x1F,
+                secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, dst, offset);
+    }
+
+    /**
+     * Formats every value into a String
+     *
+     * @param epochMillis the timestamps in milliseconds
+     * @return the formatted strings, in the same order
+     */
+    public String[] formatAll(long[] epochMillis) {
+        String[] out = new String[epochMillis.length];
+        char[] chars = new char[layout.length()];
+        for (int i = 0; i < epochMillis.length; i++) {
+            int n = format(epochMillis[i], chars, 0);
+            out[i] = new String(chars, 0, n);
+        }
+        return out;
+    }
+
+    /**
+     * Formats every value as fixed-width ASCII records laid out one after the other,
+     * {@link #length()} bytes each, e.g. for a column of a binary or fixed-width export
+     *
+     * @param epochMillis the timestamps in milliseconds
+     * @param dst the destination array, at least {@code epochMillis.length * length()} bytes from the offset
+     * @param offset the offset in the destination array
+     * @return the number of bytes written
+     */
+    public int formatAll(long[] epochMillis, byte[] dst, int offset) {
+        int p = offset;
+        for (long millis : epochMillis) {
+            p += format(millis, dst, p);
+        }
+        return p - offset;
+    }
+
+    /**
+     * Formats a stream of values
+     *
+     * @param epochMillis the timestamps in milliseconds
+     * @return the stream of formatted strings
+     */
+    public Stream<String> formatAll(LongStream epochMillis) {
+        return epochMillis.mapToObj(this::format);
+    }
+
+    private long toLocalSecond(long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000);
+        OffsetWindow w = window;
+        if (epochSecond < w.from() || epochSecond >= w.until()) {
+            w = lookup(epochSecond);
+            window = w;
+        }
+        return epochSecond + w.offsetSeconds();
+    }
+
+    private OffsetWindow lookup(long epochSecond) {
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        int offset = rules.getOffset(instant).getTotalSeconds();
+        if (rules.isFixedOffset()) {
+            return new OffsetWindow(Long.MIN_VALUE, Long.MAX_VALUE, offset);
+        }
+        // The instant itself may be a transition, which previousTransition excludes
+        ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        return new OffsetWindow(previous == null ? Long.MIN_VALUE : previous.toEpochSecond(),
+                next == null ? Long.MAX_VALUE : next.toEpochSecond(), offset);
+    }
+
+    /**
+     * Converts an epoch day to year, month and day packed as year(23 bits) month(4) day(5),
+     * with the days-from-civil inverse algorithm over 400-year eras
+     */
+    private static long civil(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+}
@@ -0,0 +1,345 @@
+package com.maemlab.craftbox;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copies files and directory trees with {@link FileChannel#transferTo}, letting the kernel move the bytes
+ * without passing them through user space where the platform supports it.
+ * <p>
+ * What happens when a target already exists is decided by an {@link ExistingPolicy}; copies can optionally
+ * be verified by comparing the digests of source and target. Directory trees are copied in parallel.
+ * <p>
+ * Instances are immutable: every {@code with*} method returns a new copier.
+ *
+ * <pre>{@code
+ * FileCopier.create()
+ *           .withExistingPolicy(FileCopier.ExistingPolicy.SKIP_IF_IDENTICAL)
+ *           .withVerification("SHA-256")
+ *           .copyTree(stagingDir, deployDir);
+ * }</pre>
+ */
+public final class FileCopier {
+    private static final String DEFAULT_ALGORITHM = "SHA-256";
+
+    private final ExistingPolicy policy;
+    private final String algorithm;
+    private final boolean verify;
+    private final int parallelism;
+
+    /**
+     * What to do when the target file already exists
+     */
+    public enum ExistingPolicy {
+        /** Leave the existing target untouched */
+        SKIP,
+        /** Replace the existing target */
+        OVERWRITE,
+        /** Leave the target untouched if it has the same size and digest as the source, replace it otherwise */
+        SKIP_IF_IDENTICAL
+    }
+
+    /**
+     * Outcome of a tree copy
+     *
+     * @param copied the number of files copied
+     * @param skipped the number of files skipped because of the {@link ExistingPolicy}
+     * @param bytes the number of bytes copied
+     * @param failures the errors met while copying, empty if the whole tree was copied
+     */
+    public record CopyResult(long copied, long skipped, long bytes, List<IOException> failures) {
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+    }
+
+    private FileCopier(ExistingPolicy policy, String algorithm, boolean verify, int parallelism) {
+        this.policy = policy;
+        this.algorithm = algorithm;
+        this.verify = verify;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Creates a copier that skips existing targets and does not verify copies
+     *
+     * @return the copier
+     */
+    public static FileCopier create() {
+        return new FileCopier(ExistingPolicy.SKIP, DEFAULT_ALGORITHM, false, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Sets what to do when a target file already exists
+     *
+     * @param policy the policy
+     * @return a new copier
+     */
+    public FileCopier withExistingPolicy(ExistingPolicy policy) {
+        return new FileCopier(Objects.requireNonNull(policy), algorithm, verify, parallelism);
+    }
+
+    /**
+     * Verifies each copy by comparing the digests of source and target.
+     * The same algorithm is used by {@link ExistingPolicy#SKIP_IF_IDENTICAL}.
+     *
+     * @param algorithm the digest algorithm (e.g. SHA-256)
+     * @return a new copier
+     * @throws NoSuchAlgorithmException if the algorithm is not available
+     */
+    public FileCopier withVerification(String algorithm) throws NoSuchAlgorithmException {
+        MessageDigest.getInstance(algorithm);
+        return new FileCopier(policy, algorithm, true, parallelism);
+    }
+
+    /**
+     * Sets the number of threads copying a tree
+     *
+     * @param threads the number of threads
+     * @return a new copier
+     */
+    public FileCopier withParallelism(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        return new FileCopier(policy, algorithm, verify, threads);
+    }
+
+    /**
+     * Copies a file. The parent directory of the target must exist.
+     * A replaced target is written to a temporary file renamed over it, so it is never seen half-written;
+     * a copy whose verification fails leaves no new file behind. Copying a file onto itself is skipped.
+     * The copy gets the POSIX permissions of the source where the file system has them.
+     *
+     * @param source the source file
+     * @param target the target file
+     * @return the number of bytes copied, or -1 if the copy was skipped
+     * @throws IOException if an I/O error occurs or the verification fails
+     */
+    public long copyFile(Path source, Path target) throws IOException {
+        return copy(source, target);
+    }
+
+    /**
+     * Copies a directory tree in parallel. Errors do not stop the copy: they are collected in the result.
+     * Symbolic links are not followed and not copied. A target inside the source is left out of the copy,
+     * so that the tree does not copy into itself.
+     *
+     * @param sourceDir the source directory
+     * @param targetDir the target directory, created if needed
+     * @return the number of files and bytes copied and the errors met
+     */
+    public CopyResult copyTree(Path sourceDir, Path targetDir) {
+        var copied = new LongAdder();
+        var skipped = new LongAdder();
+        var bytes = new LongAdder();
+        Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+
+        Path source;
+        Path excluded;
+        try {
+            source = sourceDir.toRealPath();
+            excluded = realPathOf(targetDir);
+        } catch (IOException e) {
+            return new CopyResult(0, 0, 0, List.of(e));
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new CopyTask(source, targetDir, excluded, copied, skipped, bytes, failures));
+        } finally {
+            pool.shutdown();
+        }
+        return new CopyResult(copied.sum(), skipped.sum(), bytes.sum(), List.copyOf(failures));
+    }
+
+    /**
+     * Real path of a file that may not exist yet: the real path of its closest existing ancestor, followed by
+     * the rest of the path
+     */
+    private static Path realPathOf(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath().normalize();
+        Path existing = absolute;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (existing == null) {
+            return absolute;
+        }
+        return existing.toRealPath().resolve(existing.relativize(absolute));
+    }
+
+    private long copy(Path source, Path target) throws IOException {
+        // As with Files.copy, a file copied onto itself is left alone: opening the target would truncate the source
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            return -1;
+        }
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (policy == ExistingPolicy.SKIP) {
+                // CREATE_NEW makes the existence check and the creation a single atomic step
+                try {
+                    return copyTo(source, in, size, target, StandardOpenOption.CREATE_NEW);
+                } catch (FileAlreadyExistsException e) {
+                    return -1;
+                }
+            }
+            if (policy == ExistingPolicy.SKIP_IF_IDENTICAL && isIdentical(source, size, target)) {
+                return -1;
+            }
+            // Replacements are written next to the target and renamed over it, so it is never seen half-written
+            Path tmp = FileOperations.tempSibling(target);
+            try {
+                long copied = copyTo(source, in, size, tmp, StandardOpenOption.CREATE_NEW);
+                FileOperations.moveAtomically(tmp, target);
+                return copied;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * Copies the source into a file it creates, deleting that file if the copy or its verification fails
+     *
+     * @return the number of bytes copied, less than size if the source shrank while copying
+     */
+    private long copyTo(Path source, FileChannel in, long size, Path out, StandardOpenOption mode) throws IOException {
+        FileChannel channel = FileChannel.open(out, mode, StandardOpenOption.WRITE);
+        try {
+            long position = 0;
+            try (channel) {
+                while (position < size) {
+                    long n = in.transferTo(position, size - position, channel);
+                    if (n <= 0) {
+                        // The source shrank while copying
+                        break;
+                    }
+                    position += n;
+                }
+            }
+            copyPermissions(source, out);
+            if (verify && !digest(source).equals(digest(out))) {
+                throw new IOException("Verification failed copying " + source);
+            }
+            return position;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(out);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives the target the POSIX permissions of the source, as Files.copy does with COPY_ATTRIBUTES.
+     * Without it a replaced executable would lose its execute bits.
+     */
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (view != null && Files.getFileAttributeView(source, PosixFileAttributeView.class) != null) {
+            view.setPermissions(Files.getPosixFilePermissions(source));
+        }
+    }
+
+    private boolean isIdentical(Path source, long sourceSize, Path target) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(target, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return false;
+        }
+        return attrs.isRegularFile() && attrs.size() == sourceSize && digest(source).equals(digest(target));
+    }
+
+    private String digest(Path file) throws IOException {
+        try {
+            return DigestUtils.calculateDigestMapped(file, algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // Already validated in withVerification
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class CopyTask extends RecursiveAction {
+        private final Path sourceDir;
+        private final Path targetDir;
+        // Real path of the target root, skipped if met while walking the source
+        private final Path excluded;
+        private final LongAdder copied;
+        private final LongAdder skipped;
+        private final LongAdder bytes;
+        private final Queue<IOException> failures;
+
+        CopyTask(Path sourceDir, Path targetDir, Path excluded, LongAdder copied, LongAdder skipped, LongAdder bytes,
+                 Queue<IOException> failures) {
+            this.sourceDir = sourceDir;
+            this.targetDir = targetDir;
+            this.excluded = excluded;
+            this.copied = copied;
+            this.skipped = skipped;
+            this.bytes = bytes;
+            this.failures = failures;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                Files.createDirectories(targetDir);
+            } catch (IOException e) {
+                failures.add(e);
+                return;
+            }
+            List<CopyTask> subdirs = new ArrayList<>();
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(sourceDir)) {
+                for (Path p : ds) {
+                    Path target = targetDir.resolve(p.getFileName().toString());
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isDirectory()) {
+                            if (p.equals(excluded)) {
+                                continue;
+                            }
+                            var task = new CopyTask(p, target, excluded, copied, skipped, bytes, failures);
+                            task.fork();
+                            subdirs.add(task);
+                        } else if (attrs.isRegularFile()) {
+                            long n = copy(p, target);
+                            if (n < 0) {
+                                skipped.increment();
+                            } else {
+                                copied.increment();
+                                bytes.add(n);
+                            }
+                        }
+                    } catch (IOException e) {
+                        failures.add(e);
+                    }
+                }
+            } catch (IOException e) {
+                failures.add(e);
+            } catch (DirectoryIteratorException e) {
+                failures.add(e.getCause());
+            }
+            for (CopyTask task : subdirs) {
+                task.join();
+            }
+        }
+    }
+}
@@ -2,14 +2,29 @@ package com.maemlab.craftbox;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
 public final class FileOperations {
@@ -67,7 +82,8 @@ public final class FileOperations {
 	}
 
 	/**
-	 * Reads each line of a small file denoted by its path into a ArrayList of String
+	 * Reads each line of a small file denoted by its path into a ArrayList of String.
+	 * For files too large to fit in memory see {@link LargeTextFiles}, for a compact resident copy see {@link CompactLines}.
 	 *
 	 * @param file the path of the file
 	 * @param encoding the encoding of the file
@@ -76,7 +92,21 @@ public final class FileOperations {
 	 */
 	public static List<String> readSmallTextFileToList(String file, Charset encoding) throws IOException {
 		Path path = Paths.get(file);
-		return Files.readAllLines(path, encoding);
+		return IoProbe.measure(IoMetrics.Operation.READ, path, probe -> {
+			// Read the bytes once, so the probe reports what was actually read, then decode and split them as
+			// Files.readAllLines does
+			byte[] bytes = Files.readAllBytes(path);
+			probe.read(bytes.length);
+			String text = encoding.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+			List<String> lines = new ArrayList<>();
+			try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					lines.add(line);
+				}
+			}
+			probe.files(1);
+			return lines;
+		});
 	}
 
 	/**
@@ -111,7 +141,8 @@ public final class FileOperations {
 	//********************************
 
 	/**
-	 * Reads a properties file into a Properties object
+	 * Reads a properties file into a Properties object.
+	 * To read settings repeatedly see {@link WatchedProperties}, which keeps them in memory and reloads them on change.
 	 *
 	 * @param path the path of the file to read
 	 * @return the Properties object
@@ -148,11 +179,108 @@ public final class FileOperations {
 //		return new JSONObject(readSmallTextFile(path));
 //	}
 
+	/**
+	 * Saves a JSON string to a file, replacing it in place.
+	 * See {@link #saveJsonStrToFileAtomic(Path, String)} for a crash-safe variant.
+	 *
+	 * @param path the path of the file to write
+	 * @param jsonStr the JSON content
+	 * @throws IOException if an I/O error occurs writing the file
+	 */
 	public static void saveJsonStrToFile(Path path, String jsonStr) throws IOException {
-		if(path.getParent() != null) {
-			Files.createDirectories(path.getParent());
+		IoProbe.measure(IoMetrics.Operation.WRITE, path, probe -> {
+			if(path.getParent() != null) {
+				Files.createDirectories(path.getParent());
+			}
+			Files.writeString(path, jsonStr, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			if (probe.isEnabled()) {
+				probe.written(utf8Length(jsonStr));
+			}
+			probe.files(1);
+			return null;
+		});
+	}
+
+	/**
+	 * Saves a JSON string to a file atomically: the content is written and synced to a temporary file
+	 * in the same directory, which is then renamed over the target.
+	 * To save many files at a high rate see {@link AtomicFileWriter}.
+	 *
+	 * @param path the path of the file to write
+	 * @param jsonStr the JSON content
+	 * @throws IOException if an I/O error occurs writing or renaming the file
+	 */
+	public static void saveJsonStrToFileAtomic(Path path, String jsonStr) throws IOException {
+		Path target = path.toAbsolutePath();
+		IoProbe.measure(IoMetrics.Operation.WRITE, target, probe -> {
+			Path dir = target.getParent();
+			Files.createDirectories(dir);
+			Path tmp = tempSibling(target);
+			try {
+				try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+					ByteBuffer buffer = ByteBuffer.wrap(jsonStr.getBytes(StandardCharsets.UTF_8));
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+					channel.force(false);
+					probe.written(buffer.capacity());
+				}
+				moveAtomically(tmp, target);
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+			syncDirectory(dir);
+			probe.files(1);
+			return null;
+		});
+	}
+
+	/**
+	 * Number of bytes of a string encoded in UTF-8, without encoding it
+	 */
+	private static long utf8Length(String s) {
+		long n = s.length();
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c >= 0x800) {
+				// Three bytes, or four for a surrogate pair counted as two chars
+				n += Character.isSurrogate(c) ? 1 : 2;
+			} else if (c >= 0x80) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Returns a unique hidden temporary path next to the target, so that it can be renamed over it atomically.
+	 * Unlike Files.createTempFile, the file is left to be created with the default permissions.
+	 */
+	static Path tempSibling(Path target) {
+		return target.resolveSibling("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+	}
+
+	/**
+	 * Renames a file over another atomically, falling back to a plain replace where atomic moves are not supported
+	 */
+	static void moveAtomically(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Flushes a directory entry to disk so that a rename survives a crash. Not all platforms allow it (e.g. Windows),
+	 * in which case this does nothing.
+	 */
+	static void syncDirectory(Path dir) {
+		try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			// Not supported on this platform
 		}
-		Files.writeString(path, jsonStr, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
 	}
 
 	//****************************
@@ -160,19 +288,29 @@ public final class FileOperations {
 	//****************************
 
 	/**
-	 * Copies a file from source to destination if the destination doesn't exist
+	 * Copies a file from source to destination if the destination doesn't exist.
+	 * See {@link FileCopier} for the other policies and for copying whole trees.
 	 *
 	 * @param inputFile the path of the source file
 	 * @param outputFile the path of the destination file
 	 * @throws IOException if an I/O error occurs when reading or writing
 	 */
 	public static void copyFile(String inputFile, String outputFile) throws IOException {
-		Path outputPath = Paths.get(outputFile);
-		if (!Files.exists(outputPath)) {
-			try (InputStream is = new FileInputStream(inputFile)) {
-				Files.copy(is, outputPath);
-			}
+		Path source = Paths.get(inputFile);
+		Path target = Paths.get(outputFile);
+		if (Files.exists(target)) {
+			// Skipped without looking at the source, which may be missing
+			return;
 		}
+		IoProbe.measure(IoMetrics.Operation.COPY, source, probe -> {
+			long copied = FileCopier.create().copyFile(source, target);
+			if (copied >= 0) {
+				probe.read(copied);
+				probe.written(copied);
+				probe.files(1);
+			}
+			return null;
+		});
 	}
 
 	/**
@@ -248,7 +386,11 @@ public final class FileOperations {
 	}
 
 	public static void deleteFile(Path file) throws IOException {
-		Files.delete(file);
+		IoProbe.measure(IoMetrics.Operation.DELETE, file, probe -> {
+			Files.delete(file);
+			probe.files(1);
+			return null;
+		});
 	}
 
 	public static void deleteFiles(String[] files) throws IOException {
@@ -269,6 +411,160 @@ public final class FileOperations {
 		}
 	}
 
+	/**
+	 * Outcome of a recursive directory deletion
+	 *
+	 * @param files the number of files (including symbolic links) deleted
+	 * @param directories the number of directories deleted
+	 * @param bytes the total size of the deleted files
+	 * @param failures the errors met while deleting, empty if the whole tree was removed
+	 */
+	public record DeleteResult(long files, long directories, long bytes, List<IOException> failures) {
+		public boolean isSuccess() {
+			return failures.isEmpty();
+		}
+	}
+
+	/**
+	 * Deletes a directory and all its content
+	 *
+	 * @param dir the path of the directory to delete
+	 * @return the number of files and bytes freed and the errors met
+	 * @see #deleteDir(Path)
+	 */
+	public static DeleteResult deleteDir(String dir) {
+		return deleteDir(Paths.get(dir));
+	}
+
+	/**
+	 * Deletes a directory and all its content.
+	 * Independent subtrees are deleted concurrently and each directory is removed after its content.
+	 * Errors do not stop the deletion: they are collected in the result and the rest of the tree is still removed.
+	 * Symbolic links are deleted, not followed.
+	 *
+	 * @param dir the path of the directory to delete
+	 * @return the number of files and bytes freed and the errors met
+	 */
+	public static DeleteResult deleteDir(Path dir) {
+		return deleteDir(dir, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Deletes a directory and all its content using the given number of threads
+	 *
+	 * @param dir the path of the directory to delete
+	 * @param parallelism the number of threads deleting the tree
+	 * @return the number of files and bytes freed and the errors met
+	 * @throws IllegalArgumentException if parallelism is not positive
+	 * @see #deleteDir(Path)
+	 */
+	public static DeleteResult deleteDir(Path dir, int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be positive");
+		}
+		var files = new LongAdder();
+		var directories = new LongAdder();
+		var bytes = new LongAdder();
+		Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+
+		// Failures are collected in the result rather than thrown, so IoProbe.measure does not fit here
+		IoProbe probe = IoProbe.begin(IoMetrics.Operation.DELETE, dir);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			// Listing a link to a directory would delete the content of its target: delete only the link
+			BasicFileAttributes attrs = readAttributesNoFollow(dir, failures);
+			if (attrs != null && attrs.isSymbolicLink()) {
+				try {
+					Files.delete(dir);
+					files.increment();
+				} catch (IOException e) {
+					failures.add(e);
+				}
+			} else if (attrs != null) {
+				pool.invoke(new DeleteTask(dir, files, directories, bytes, failures));
+			}
+		} catch (RuntimeException e) {
+			probe.fail(e);
+			throw e;
+		} finally {
+			pool.shutdown();
+			probe.files(files.sum() + directories.sum());
+			if (!failures.isEmpty()) {
+				probe.fail(failures.peek());
+			}
+			probe.end();
+		}
+		return new DeleteResult(files.sum(), directories.sum(), bytes.sum(), List.copyOf(failures));
+	}
+
+	private static BasicFileAttributes readAttributesNoFollow(Path path, Queue<IOException> failures) {
+		try {
+			return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (IOException e) {
+			failures.add(e);
+			return null;
+		}
+	}
+
+	private static final class DeleteTask extends RecursiveAction {
+		private final Path dir;
+		private final LongAdder files;
+		private final LongAdder directories;
+		private final LongAdder bytes;
+		private final Queue<IOException> failures;
+
+		DeleteTask(Path dir, LongAdder files, LongAdder directories, LongAdder bytes, Queue<IOException> failures) {
+			this.dir = dir;
+			this.files = files;
+			this.directories = directories;
+			this.bytes = bytes;
+			this.failures = failures;
+		}
+
+		@Override
+		protected void compute() {
+			List<DeleteTask> subdirs = new ArrayList<>();
+			boolean listed = true;
+			try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+				for (Path p : ds) {
+					try {
+						BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+						if (attrs.isDirectory()) {
+							var task = new DeleteTask(p, files, directories, bytes, failures);
+							task.fork();
+							subdirs.add(task);
+						} else {
+							Files.delete(p);
+							files.increment();
+							bytes.add(attrs.size());
+						}
+					} catch (IOException e) {
+						failures.add(e);
+					}
+				}
+			} catch (IOException e) {
+				failures.add(e);
+				listed = false;
+			} catch (DirectoryIteratorException e) {
+				failures.add(e.getCause());
+				listed = false;
+			}
+			for (DeleteTask task : subdirs) {
+				task.join();
+			}
+			if (!listed) {
+				// The directory cannot be empty (or does not exist), deleting it would only repeat the failure
+				return;
+			}
+			try {
+				Files.delete(dir);
+				directories.increment();
+			} catch (IOException e) {
+				failures.add(e);
+			}
+		}
+	}
+
 	public static List<File> listFiles(String dir) throws IOException {
 		return listFiles(Paths.get(dir));
 	}
@@ -276,23 +572,30 @@ public final class FileOperations {
 	/**
 	 * Lists all files in the specified directory and its subdirectories recursively.
 	 * The returned list is sorted in natural order.
+	 * For large trees see {@link FileWalker}, which streams the files while walking in parallel.
 	 *
 	 * @param dir the directory to search for files
 	 * @return a sorted list of all regular files found in the directory tree
 	 * @throws IOException if an I/O error occurs when accessing the directory
 	 */
 	public static List<File> listFiles(Path dir) throws IOException {
-		try (Stream<Path> stream = Files.walk(dir)){
-			return stream.filter(Files::isRegularFile)
-						 .map(Path::toFile)
-						 .sorted()
-						 .toList();
-		}
+		return IoProbe.measure(IoMetrics.Operation.LIST, dir, probe -> {
+			try (Stream<Path> stream = Files.walk(dir)) {
+				List<File> files = stream.filter(Files::isRegularFile)
+										 .map(Path::toFile)
+										 .sorted()
+										 .toList();
+				probe.files(files.size());
+				return files;
+			}
+		});
 	}
 
 	/**
 	 * Lists all files with the specified extension in the directory and its subdirectories recursively.
 	 * The returned list is sorted in natural order.
+	 * For large trees see {@link FileWalker#withExtension(String)}; to list the same tree repeatedly,
+	 * see {@link DirectoryIndex#listFilesByExtension(String)}, which keeps it in memory.
 	 *
 	 * @param dir the directory to search for files
 	 * @param extension the file extension to filter by (e.g., ".txt", ".java")
@@ -300,17 +603,19 @@ public final class FileOperations {
 	 * @throws IOException if an I/O error occurs when accessing the directory
 	 */
 	public static List<File> listFilesByExtension(Path dir, String extension) throws IOException {
-		try (Stream<Path> stream = Files.walk(dir)){
-			return stream.filter(Files::isRegularFile)
-						 .filter(path -> path.getFileName().toString().endsWith(extension))
-						 .map(Path::toFile)
-						 .sorted()
-						 .toList();
-		}
+		return IoProbe.measure(IoMetrics.Operation.LIST, dir, probe -> {
+			try (Stream<Path> stream = Files.walk(dir)) {
+				List<File> files = stream.filter(Files::isRegularFile)
+										 .filter(path -> path.getFileName().toString().endsWith(extension))
+										 .map(Path::toFile)
+										 .sorted()
+										 .toList();
+				probe.files(files.size());
+				return files;
+			}
+		});
 	}
 
 	// TODO
-	// deleteDir
 	// fileExists
-	// deleteDir&Files
 }
\ No newline at end of file
@@ -0,0 +1,356 @@
+package com.maemlab.craftbox;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy, parallel walker over the regular files of a directory tree.
+ * <p>
+ * Subdirectories are traversed concurrently on a dedicated fork-join pool and the attributes of each
+ * entry are read only once. Matching files are handed to the consumer as soon as they are found,
+ * so work can start before the walk is over. Results are sorted only if {@link #sorted()} is requested.
+ * Symbolic links are not followed.
+ * <p>
+ * Instances are immutable: every {@code with*} method returns a new walker.
+ *
+ * <pre>{@code
+ * try (Stream<FileWalker.Entry> files = FileWalker.of(dir).withExtension(".log").withMinSize(1024).stream()) {
+ *     files.forEach(e -> process(e.path()));
+ * }
+ * }</pre>
+ */
+public final class FileWalker {
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final Entry END = new Entry(null, null);
+
+    private final Path root;
+    private final Predicate<Entry> filter;
+    private final boolean sorted;
+    private final int parallelism;
+
+    /**
+     * A regular file found by the walker, along with the attributes read while walking
+     *
+     * @param path the path of the file
+     * @param attributes the attributes of the file
+     */
+    public record Entry(Path path, BasicFileAttributes attributes) {
+        public File toFile() {
+            return path.toFile();
+        }
+
+        public long size() {
+            return attributes.size();
+        }
+    }
+
+    private FileWalker(Path root, Predicate<Entry> filter, boolean sorted, int parallelism) {
+        this.root = root;
+        this.filter = filter;
+        this.sorted = sorted;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Creates a walker over all regular files under the given directory
+     *
+     * @param root the directory to walk
+     * @return the walker
+     */
+    public static FileWalker of(Path root) {
+        return new FileWalker(Objects.requireNonNull(root), e -> true, false, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Keeps only entries accepted by the given predicate, in addition to the filters already set
+     *
+     * @param predicate the predicate
+     * @return a new walker
+     */
+    public FileWalker withFilter(Predicate<Entry> predicate) {
+        return new FileWalker(root, filter.and(predicate), sorted, parallelism);
+    }
+
+    /**
+     * Keeps only files whose name ends with the given extension
+     *
+     * @param extension the file extension (e.g., ".txt", ".java")
+     * @return a new walker
+     */
+    public FileWalker withExtension(String extension) {
+        return withFilter(e -> e.path().getFileName().toString().endsWith(extension));
+    }
+
+    /**
+     * Keeps only files whose path relative to the root matches the given glob (e.g., "**&#47;*.java")
+     *
+     * @param glob the glob pattern, see {@link java.nio.file.FileSystem#getPathMatcher(String)}
+     * @return a new walker
+     */
+    public FileWalker withGlob(String glob) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        return withFilter(e -> matcher.matches(root.relativize(e.path())));
+    }
+
+    /**
+     * Keeps only files of at least the given size
+     *
+     * @param bytes the minimum size in bytes
+     * @return a new walker
+     */
+    public FileWalker withMinSize(long bytes) {
+        return withFilter(e -> e.size() >= bytes);
+    }
+
+    /**
+     * Keeps only files of at most the given size
+     *
+     * @param bytes the maximum size in bytes
+     * @return a new walker
+     */
+    public FileWalker withMaxSize(long bytes) {
+        return withFilter(e -> e.size() <= bytes);
+    }
+
+    /**
+     * Keeps only files modified after the given instant
+     *
+     * @param instant the lower bound, exclusive
+     * @return a new walker
+     */
+    public FileWalker modifiedAfter(Instant instant) {
+        return withFilter(e -> e.attributes().lastModifiedTime().toInstant().isAfter(instant));
+    }
+
+    /**
+     * Keeps only files modified before the given instant
+     *
+     * @param instant the upper bound, exclusive
+     * @return a new walker
+     */
+    public FileWalker modifiedBefore(Instant instant) {
+        return withFilter(e -> e.attributes().lastModifiedTime().toInstant().isBefore(instant));
+    }
+
+    /**
+     * Returns the files in natural path order. The whole walk has to finish before the first file is returned.
+     *
+     * @return a new walker
+     */
+    public FileWalker sorted() {
+        return new FileWalker(root, filter, true, parallelism);
+    }
+
+    /**
+     * Sets the number of threads walking the tree
+     *
+     * @param threads the number of threads
+     * @return a new walker
+     */
+    public FileWalker withParallelism(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        return new FileWalker(root, filter, sorted, threads);
+    }
+
+    /**
+     * Walks the tree, passing each matching file to the consumer from the walking threads.
+     * Returns when the whole tree has been visited.
+     *
+     * @param consumer the consumer, called concurrently unless the walker is sorted
+     * @throws IOException if an I/O error occurs when accessing a directory
+     */
+    public void forEach(Consumer<Entry> consumer) throws IOException {
+        if (sorted) {
+            for (Entry e : toList()) {
+                consumer.accept(e);
+            }
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryTask(root, consumer, () -> false));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Walks the tree and collects the matching files
+     *
+     * @return the matching files, sorted if requested
+     * @throws IOException if an I/O error occurs when accessing a directory
+     */
+    public List<Entry> toList() throws IOException {
+        List<Entry> result = java.util.Collections.synchronizedList(new ArrayList<>());
+        new FileWalker(root, filter, false, parallelism).forEach(result::add);
+        List<Entry> list = new ArrayList<>(result);
+        if (sorted) {
+            list.sort(Comparator.comparing(Entry::path));
+        }
+        return list;
+    }
+
+    /**
+     * Returns a lazy stream of the matching files. The walk runs in the background and the stream yields
+     * files as they are found; closing the stream stops the walk. I/O errors are rethrown as
+     * {@link UncheckedIOException} when the stream reaches them.
+     *
+     * @return the stream of matching files, to be closed after use
+     */
+    public Stream<Entry> stream() {
+        if (sorted) {
+            try {
+                return toList().stream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new BackgroundWalk().stream();
+    }
+
+    private final class BackgroundWalk {
+        private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        private volatile boolean closed;
+        private volatile Throwable error;
+
+        Stream<Entry> stream() {
+            pool.execute(() -> {
+                try {
+                    new DirectoryTask(root, this::put, () -> closed).invoke();
+                } catch (Throwable t) {
+                    error = t;
+                } finally {
+                    put(END);
+                }
+            });
+            var spliterator = new Spliterators.AbstractSpliterator<Entry>(Long.MAX_VALUE, Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Entry> action) {
+                    Entry e = take();
+                    if (e == END) {
+                        return false;
+                    }
+                    action.accept(e);
+                    return true;
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(this::close);
+        }
+
+        private void put(Entry e) {
+            try {
+                while (!closed && !queue.offer(e, 100, TimeUnit.MILLISECONDS)) {
+                    // Wait for the consumer to catch up
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+        }
+
+        private Entry take() {
+            Entry e;
+            try {
+                e = queue.take();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while walking " + root, ie);
+            }
+            if (e == END) {
+                // Keep returning END on further calls
+                queue.offer(END);
+                pool.shutdown();
+                Throwable t = error;
+                if (t instanceof UncheckedIOException uioe) {
+                    throw uioe;
+                } else if (t instanceof RuntimeException re) {
+                    throw re;
+                } else if (t instanceof Error err) {
+                    throw err;
+                }
+            }
+            return e;
+        }
+
+        private void close() {
+            closed = true;
+            queue.clear();
+            pool.shutdown();
+        }
+    }
+
+    private interface Cancellation {
+        boolean isCancelled();
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+        private final Consumer<Entry> consumer;
+        private final Cancellation cancellation;
+
+        DirectoryTask(Path dir, Consumer<Entry> consumer, Cancellation cancellation) {
+            this.dir = dir;
+            this.consumer = consumer;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subdirs = new ArrayList<>();
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+                for (Path p : ds) {
+                    if (cancellation.isCancelled()) {
+                        break;
+                    }
+                    BasicFileAttributes attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attrs.isDirectory()) {
+                        var task = new DirectoryTask(p, consumer, cancellation);
+                        task.fork();
+                        subdirs.add(task);
+                    } else if (attrs.isRegularFile()) {
+                        var e = new Entry(p, attrs);
+                        if (filter.test(e)) {
+                            consumer.accept(e);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                for (DirectoryTask task : subdirs) {
+                    task.join();
+                }
+            }
+        }
+    }
+}
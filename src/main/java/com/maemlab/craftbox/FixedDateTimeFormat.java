@@ -0,0 +1,382 @@
+package com.maemlab.craftbox;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Hand-written formatters for the fixed patterns used by {@link DateTimeFormatUtils}.
+ * <p>
+ * Unlike {@link java.time.format.DateTimeFormatter}, these write the digits straight into a caller-supplied
+ * {@code char[]}, {@code byte[]} (ASCII) or {@code StringBuilder}, without building intermediate objects.
+ * Output is identical to the corresponding {@code DateTimeFormatter} patterns for years 1 to 9999;
+ * other years are rejected with a {@link DateTimeException}.
+ */
+public final class FixedDateTimeFormat {
+
+    /**
+     * The supported layouts
+     */
+    public enum Layout {
+        /** yyyy-MM-dd */
+        ISO_DATE(10),
+        /** dd/MM/yyyy */
+        ITALIAN_DATE(10),
+        /** yyyy/MM/dd */
+        UK_DATE(10),
+        /** HH:mm:ss */
+        TIME(8),
+        /** yyyy-MM-dd HH:mm:ss */
+        TIMESTAMP(19),
+        /** dd/MM/yyyy HH:mm:ss */
+        ITALIAN_DATETIME(19),
+        /** yyyyMMdd_HHmmss */
+        COMPACT(15);
+
+        private final int length;
+
+        Layout(int length) {
+            this.length = length;
+        }
+
+        /**
+         * @return the number of characters produced by this layout
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * @return true if this layout includes a date part
+         */
+        public boolean hasDate() {
+            return this != TIME;
+        }
+
+        /**
+         * @return true if this layout includes a time part
+         */
+        public boolean hasTime() {
+            return this == TIME || this == TIMESTAMP || this == ITALIAN_DATETIME || this == COMPACT;
+        }
+    }
+
+    private FixedDateTimeFormat() {}
+
+    //***********************
+    //*  java.time sources  *
+    //***********************
+
+    /**
+     * Formats a date and time into a String
+     *
+     * @param layout the layout
+     * @param dateTime the date and time to format
+     * @return the formatted string
+     */
+    public static String format(Layout layout, LocalDateTime dateTime) {
+        char[] chars = new char[layout.length];
+        format(layout, dateTime, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Formats a date and time into a char array
+     *
+     * @param layout the layout
+     * @param dateTime the date and time to format
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of chars written
+     */
+    public static int format(Layout layout, LocalDateTime dateTime, char[] dst, int offset) {
+        return format(layout, dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond(), dst, offset);
+    }
+
+    /**
+     * Formats a date and time into a byte array as ASCII
+     *
+     * @param layout the layout
+     * @param dateTime the date and time to format
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of bytes written
+     */
+    public static int format(Layout layout, LocalDateTime dateTime, byte[] dst, int offset) {
+        return format(layout, dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond(), dst, offset);
+    }
+
+    /**
+     * Appends a formatted date and time to a StringBuilder
+     *
+     * @param layout the layout
+     * @param dateTime the date and time to format
+     * @param sb the StringBuilder to append to
+     * @return the same StringBuilder
+     */
+    public static StringBuilder format(Layout layout, LocalDateTime dateTime, StringBuilder sb) {
+        return format(layout, dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond(), sb);
+    }
+
+    /**
+     * Formats a date into a char array. Time fields, if the layout has any, are written as midnight.
+     *
+     * @param layout the layout
+     * @param date the date to format
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of chars written
+     */
+    public static int format(Layout layout, LocalDate date, char[] dst, int offset) {
+        return format(layout, date.getYear(), date.getMonthValue(), date.getDayOfMonth(), 0, 0, 0, dst, offset);
+    }
+
+    /**
+     * Formats a date into a byte array as ASCII. Time fields, if the layout has any, are written as midnight.
+     *
+     * @param layout the layout
+     * @param date the date to format
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of bytes written
+     */
+    public static int format(Layout layout, LocalDate date, byte[] dst, int offset) {
+        return format(layout, date.getYear(), date.getMonthValue(), date.getDayOfMonth(), 0, 0, 0, dst, offset);
+    }
+
+    /**
+     * Appends a formatted date to a StringBuilder. Time fields, if the layout has any, are written as midnight.
+     *
+     * @param layout the layout
+     * @param date the date to format
+     * @param sb the StringBuilder to append to
+     * @return the same StringBuilder
+     */
+    public static StringBuilder format(Layout layout, LocalDate date, StringBuilder sb) {
+        return format(layout, date.getYear(), date.getMonthValue(), date.getDayOfMonth(), 0, 0, 0, sb);
+    }
+
+    /**
+     * Appends a formatted date and time to a StringBuilder, e.g. {@code formatDateTime} without concatenation
+     *
+     * @param layout the layout
+     * @param date the date part
+     * @param time the time part
+     * @param sb the StringBuilder to append to
+     * @return the same StringBuilder
+     */
+    public static StringBuilder format(Layout layout, LocalDate date, LocalTime time, StringBuilder sb) {
+        return format(layout, date.getYear(), date.getMonthValue(), date.getDayOfMonth(),
+                time.getHour(), time.getMinute(), time.getSecond(), sb);
+    }
+
+    //****************
+    //*  Raw fields  *
+    //****************
+
+    /**
+     * Formats date and time fields into a char array. Fields are not validated beyond the year range.
+     *
+     * @return the number of chars written
+     */
+    public static int format(Layout layout, int year, int month, int day, int hour, int minute, int second, char[] dst, int offset) {
+        checkYear(year);
+        int p = offset;
+        switch (layout) {
+            case ISO_DATE -> p = date(year, month, day, '-', dst, p);
+            case UK_DATE -> p = date(year, month, day, '/', dst, p);
+            case ITALIAN_DATE -> p = italianDate(year, month, day, dst, p);
+            case TIME -> p = time(hour, minute, second, dst, p);
+            case TIMESTAMP -> {
+                p = date(year, month, day, '-', dst, p);
+                dst[p++] = ' ';
+                p = time(hour, minute, second, dst, p);
+            }
+            case ITALIAN_DATETIME -> {
+                p = italianDate(year, month, day, dst, p);
+                dst[p++] = ' ';
+                p = time(hour, minute, second, dst, p);
+            }
+            case COMPACT -> {
+                p = pair(year / 100, dst, p);
+                p = pair(year % 100, dst, p);
+                p = pair(month, dst, p);
+                p = pair(day, dst, p);
+                dst[p++] = '_';
+                p = pair(hour, dst, p);
+                p = pair(minute, dst, p);
+                p = pair(second, dst, p);
+            }
+        }
+        return p - offset;
+    }
+
+    /**
+     * Formats date and time fields into a byte array as ASCII. Fields are not validated beyond the year range.
+     *
+     * @return the number of bytes written
+     */
+    public static int format(Layout layout, int year, int month, int day, int hour, int minute, int second, byte[] dst, int offset) {
+        checkYear(year);
+        int p = offset;
+        switch (layout) {
+            case ISO_DATE -> p = date(year, month, day, (byte) '-', dst, p);
+            case UK_DATE -> p = date(year, month, day, (byte) '/', dst, p);
+            case ITALIAN_DATE -> p = italianDate(year, month, day, dst, p);
+            case TIME -> p = time(hour, minute, second, dst, p);
+            case TIMESTAMP -> {
+                p = date(year, month, day, (byte) '-', dst, p);
+                dst[p++] = ' ';
+                p = time(hour, minute, second, dst, p);
+            }
+            case ITALIAN_DATETIME -> {
+                p = italianDate(year, month, day, dst, p);
+                dst[p++] = ' ';
+                p = time(hour, minute, second, dst, p);
+            }
+            case COMPACT -> {
+                p = pair(year / 100, dst, p);
+                p = pair(year % 100, dst, p);
+                p = pair(month, dst, p);
+                p = pair(day, dst, p);
+                dst[p++] = '_';
+                p = pair(hour, dst, p);
+                p = pair(minute, dst, p);
+                p = pair(second, dst, p);
+            }
+        }
+        return p - offset;
+    }
+
+    /**
+     * Appends formatted date and time fields to a StringBuilder. Fields are not validated beyond the year range.
+     *
+     * @return the same StringBuilder
+     */
+    public static StringBuilder format(Layout layout, int year, int month, int day, int hour, int minute, int second, StringBuilder sb) {
+        checkYear(year);
+        switch (layout) {
+            case ISO_DATE -> date(year, month, day, '-', sb);
+            case UK_DATE -> date(year, month, day, '/', sb);
+            case ITALIAN_DATE -> italianDate(year, month, day, sb);
+            case TIME -> time(hour, minute, second, sb);
+            case TIMESTAMP -> time(hour, minute, second, date(year, month, day, '-', sb).append(' '));
+            case ITALIAN_DATETIME -> time(hour, minute, second, italianDate(year, month, day, sb).append(' '));
+            case COMPACT -> {
+                pair(year / 100, sb);
+                pair(year % 100, sb);
+                pair(month, sb);
+                pair(day, sb);
+                sb.append('_');
+                pair(hour, sb);
+                pair(minute, sb);
+                pair(second, sb);
+            }
+        }
+        return sb;
+    }
+
+    private static void checkYear(int year) {
+        if (year < 1 || year > 9999) {
+            throw new DateTimeException("Year out of range 1-9999: " + year);
+        }
+    }
+
+    private static int date(int year, int month, int day, char sep, char[] dst, int p) {
+        p = pair(year / 100, dst, p);
+        p = pair(year % 100, dst, p);
+        dst[p++] = sep;
+        p = pair(month, dst, p);
+        dst[p++] = sep;
+        return pair(day, dst, p);
+    }
+
+    private static int italianDate(int year, int month, int day, char[] dst, int p) {
+        p = pair(day, dst, p);
+        dst[p++] = '/';
+        p = pair(month, dst, p);
+        dst[p++] = '/';
+        p = pair(year / 100, dst, p);
+        return pair(year % 100, dst, p);
+    }
+
+    private static int time(int hour, int minute, int second, char[] dst, int p) {
+        p = pair(hour, dst, p);
+        dst[p++] = ':';
+        p = pair(minute, dst, p);
+        dst[p++] = ':';
+        return pair(second, dst, p);
+    }
+
+    private static int pair(int value, char[] dst, int p) {
+        dst[p] = DigitPairs.TENS[value];
+        dst[p + 1] = DigitPairs.ONES[value];
+        return p + 2;
+    }
+
+    private static int date(int year, int month, int day, byte sep, byte[] dst, int p) {
+        p = pair(year / 100, dst, p);
+        p = pair(year % 100, dst, p);
+        dst[p++] = sep;
+        p = pair(month, dst, p);
+        dst[p++] = sep;
+        return pair(day, dst, p);
+    }
+
+    private static int italianDate(int year, int month, int day, byte[] dst, int p) {
+        p = pair(day, dst, p);
+        dst[p++] = '/';
+        p = pair(month, dst, p);
+        dst[p++] = '/';
+        p = pair(year / 100, dst, p);
+        return pair(year % 100, dst, p);
+    }
+
+    private static int time(int hour, int minute, int second, byte[] dst, int p) {
+        p = pair(hour, dst, p);
+        dst[p++] = ':';
+        p = pair(minute, dst, p);
+        dst[p++] = ':';
+        return pair(second, dst, p);
+    }
+
+    private static int pair(int value, byte[] dst, int p) {
+        dst[p] = (byte) DigitPairs.TENS[value];
+        dst[p + 1] = (byte) DigitPairs.ONES[value];
+        return p + 2;
+    }
+
+    private static StringBuilder date(int year, int month, int day, char sep, StringBuilder sb) {
+        pair(year / 100, sb);
+        pair(year % 100, sb);
+        sb.append(sep);
+        pair(month, sb);
+        sb.append(sep);
+        return pair(day, sb);
+    }
+
+    private static StringBuilder italianDate(int year, int month, int day, StringBuilder sb) {
+        pair(day, sb);
+        sb.append('/');
+        pair(month, sb);
+        sb.append('/');
+        pair(year / 100, sb);
+        return pair(year % 100, sb);
+    }
+
+    private static StringBuilder time(int hour, int minute, int second, StringBuilder sb) {
+        pair(hour, sb);
+        sb.append(':');
+        pair(minute, sb);
+        sb.append(':');
+        return pair(second, sb);
+    }
+
+    private static StringBuilder pair(int value, StringBuilder sb) {
+        return sb.append(DigitPairs.TENS[value]).append(DigitPairs.ONES[value]);
+    }
+}
@@ -0,0 +1,345 @@
+package com.maemlab.craftbox;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import com.maemlab.craftbox.FixedDateTimeFormat.Layout;
+
+/**
+ * Exception-free parsers for the fixed layouts of {@link FixedDateTimeFormat}, with bulk conversion of whole columns.
+ * <p>
+ * Parsing never throws on bad input: invalid values are reported with a sentinel ({@link #INVALID}) or {@code null}.
+ * Fields are checked strictly, so a day that does not exist in its month (e.g. 30/02) is invalid, and no
+ * leading or trailing characters are allowed.
+ */
+public final class FixedDateTimeParser {
+
+    /**
+     * Returned by the primitive parsers for invalid input
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int DAYS_0000_TO_1970 = 719528;
+
+    private FixedDateTimeParser() {}
+
+    //*******************
+    //*  Single values  *
+    //*******************
+
+    /**
+     * Checks whether the text is valid for the layout
+     *
+     * @param text the text to check, may be null
+     * @param layout the expected layout
+     * @return true if the text can be parsed
+     */
+    public static boolean isValid(CharSequence text, Layout layout) {
+        return parseFields(text, layout) >= 0;
+    }
+
+    /**
+     * Parses the date part of the text into an epoch day
+     *
+     * @param text the text to parse, may be null
+     * @param layout a layout with a date part
+     * @return the epoch day, or {@link #INVALID}
+     */
+    public static long parseEpochDay(CharSequence text, Layout layout) {
+        long f = parseFields(text, layout);
+        return f < 0 || !layout.hasDate() ? INVALID : epochDay(year(f), month(f), day(f));
+    }
+
+    /**
+     * Parses the text into seconds since 1970-01-01T00:00:00, without any time zone
+     *
+     * @param text the text to parse, may be null
+     * @param layout a layout with a date part
+     * @return the local epoch second, or {@link #INVALID}
+     */
+    public static long parseLocalEpochSecond(CharSequence text, Layout layout) {
+        long f = parseFields(text, layout);
+        if (f < 0 || !layout.hasDate()) {
+            return INVALID;
+        }
+        return epochDay(year(f), month(f), day(f)) * 86400 + hour(f) * 3600L + minute(f) * 60L + second(f);
+    }
+
+    /**
+     * Parses the date part of the text
+     *
+     * @param text the text to parse, may be null
+     * @param layout a layout with a date part
+     * @return the date, or null if the text is invalid
+     */
+    public static LocalDate parseDate(CharSequence text, Layout layout) {
+        long f = parseFields(text, layout);
+        return f < 0 || !layout.hasDate() ? null : LocalDate.of(year(f), month(f), day(f));
+    }
+
+    /**
+     * Parses the text into a date and time. Layouts without a time part yield midnight.
+     *
+     * @param text the text to parse, may be null
+     * @param layout a layout with a date part
+     * @return the date and time, or null if the text is invalid
+     */
+    public static LocalDateTime parseDateTime(CharSequence text, Layout layout) {
+        long f = parseFields(text, layout);
+        return f < 0 || !layout.hasDate() ? null : LocalDateTime.of(year(f), month(f), day(f), hour(f), minute(f), second(f));
+    }
+
+    /**
+     * Converts the text from a layout to another, e.g. from {@code TIMESTAMP} to {@code ITALIAN_DATE}.
+     * Time fields missing from the source are written as midnight.
+     *
+     * @param text the text to convert, may be null
+     * @param from the layout of the text
+     * @param to the target layout
+     * @param sb the StringBuilder receiving the converted text
+     * @return true if the text was valid and has been appended
+     */
+    public static boolean convert(CharSequence text, Layout from, Layout to, StringBuilder sb) {
+        long f = parseFields(text, from);
+        if (f < 0 || (to.hasDate() && !from.hasDate())) {
+            return false;
+        }
+        FixedDateTimeFormat.format(to, from.hasDate() ? year(f) : 1, month(f), day(f), hour(f), minute(f), second(f), sb);
+        return true;
+    }
+
+    //******************
+    //*  Bulk columns  *
+    //******************
+
+    /**
+     * Parses a column of dates into epoch days
+     *
+     * @param column the values to parse, null entries are invalid
+     * @param layout a layout with a date part
+     * @param out the epoch days, {@link #INVALID} for invalid entries; at least as long as the column
+     * @return the number of invalid entries
+     */
+    public static int parseEpochDays(CharSequence[] column, Layout layout, long[] out) {
+        int invalid = 0;
+        for (int i = 0; i < column.length; i++) {
+            long v = parseEpochDay(column[i], layout);
+            out[i] = v;
+            if (v == INVALID) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Converts a column of values from a layout to another
+     *
+     * @param column the values to convert, null entries are invalid
+     * @param from the layout of the values
+     * @param to the target layout
+     * @param out the converted values, null for invalid entries; at least as long as the column
+     * @return the number of invalid entries
+     */
+    public static int convert(CharSequence[] column, Layout from, Layout to, String[] out) {
+        var sb = new StringBuilder(to.length());
+        int invalid = 0;
+        for (int i = 0; i < column.length; i++) {
+            sb.setLength(0);
+            if (convert(column[i], from, to, sb)) {
+                out[i] = sb.toString();
+            } else {
+                out[i] = null;
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Converts a stream of values from a layout to another
+     *
+     * @param column the values to convert
+     * @param from the layout of the values
+     * @param to the target layout
+     * @param invalidValue the value emitted for invalid entries
+     * @return the stream of converted values
+     */
+    public static Stream<String> convert(Stream<? extends CharSequence> column, Layout from, Layout to, String invalidValue) {
+        return column.map(text -> {
+            var sb = new StringBuilder(to.length());
+            return convert(text, from, to, sb) ? sb.toString() : invalidValue;
+        });
+    }
+
+    //***************
+    //*  Internals  *
+    //***************
+
+    /**
+     * Parses the text into fields packed as year(14 bits) month(4) day(5) hour(5) minute(6) second(6),
+     * or returns -1 if the text is invalid
+     */
+    private static long parseFields(CharSequence s, Layout layout) {
+        if (s == null || s.length() != layout.length()) {
+            return -1;
+        }
+        int year = 1, month = 1, day = 1, hour = 0, minute = 0, second = 0;
+        switch (layout) {
+            case ISO_DATE, UK_DATE, TIMESTAMP -> {
+                char sep = layout == Layout.UK_DATE ? '/' : '-';
+                if (s.charAt(4) != sep || s.charAt(7) != sep) {
+                    return -1;
+                }
+                year = digits4(s, 0);
+                month = digits2(s, 5);
+                day = digits2(s, 8);
+                if (layout == Layout.TIMESTAMP) {
+                    if (s.charAt(10) != ' ') {
+                        return -1;
+                    }
+                    int t = time(s, 11);
+                    if (t < 0) {
+                        return -1;
+                    }
+                    hour = t >> 12;
+                    minute = (t >> 6) & 0x3F;
+                    second = t & 0x3F;
+                }
+            }
+            case ITALIAN_DATE, ITALIAN_DATETIME -> {
+                if (s.charAt(2) != '/' || s.charAt(5) != '/') {
+                    return -1;
+                }
+                day = digits2(s, 0);
+                month = digits2(s, 3);
+                year = digits4(s, 6);
+                if (layout == Layout.ITALIAN_DATETIME) {
+                    if (s.charAt(10) != ' ') {
+                        return -1;
+                    }
+                    int t = time(s, 11);
+                    if (t < 0) {
+                        return -1;
+                    }
+                    hour = t >> 12;
+                    minute = (t >> 6) & 0x3F;
+                    second = t & 0x3F;
+                }
+            }
+            case TIME -> {
+                int t = time(s, 0);
+                if (t < 0) {
+                    return -1;
+                }
+                hour = t >> 12;
+                minute = (t >> 6) & 0x3F;
+                second = t & 0x3F;
+            }
+            case COMPACT -> {
+                if (s.charAt(8) != '_') {
+                    return -1;
+                }
+                year = digits4(s, 0);
+                month = digits2(s, 4);
+                day = digits2(s, 6);
+                hour = digits2(s, 9);
+                minute = digits2(s, 11);
+                second = digits2(s, 13);
+                if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+                    return -1;
+                }
+            }
+        }
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return -1;
+        }
+        return ((long) year << 26) | ((long) month << 22) | ((long) day << 17) | (hour << 12) | (minute << 6) | second;
+    }
+
+    /**
+     * Parses HH:mm:ss packed as hour(5) minute(6) second(6), or returns -1
+     */
+    private static int time(CharSequence s, int p) {
+        if (s.charAt(p + 2) != ':' || s.charAt(p + 5) != ':') {
+            return -1;
+        }
+        int hour = digits2(s, p);
+        int minute = digits2(s, p + 3);
+        int second = digits2(s, p + 6);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return -1;
+        }
+        return (hour << 12) | (minute << 6) | second;
+    }
+
+    private static int digits2(CharSequence s, int p) {
+        int a = s.charAt(p) - '0';
+        int b = s.charAt(p + 1) - '0';
+        // An unsigned compare rejects both negative values and values above 9
+        if (Integer.compareUnsigned(a, 9) > 0 || Integer.compareUnsigned(b, 9) > 0) {
+            return -1;
+        }
+        return a * 10 + b;
+    }
+
+    private static int digits4(CharSequence s, int p) {
+        int hi = digits2(s, p);
+        int lo = digits2(s, p + 2);
+        return hi < 0 || lo < 0 ? -1 : hi * 100 + lo;
+    }
+
+    private static int year(long f) {
+        return (int) (f >>> 26);
+    }
+
+    private static int month(long f) {
+        return (int) (f >>> 22) & 0x0F;
+    }
+
+    private static int day(long f) {
+        return (int) (f >>> 17) & 0x1F;
+    }
+
+    private static int hour(long f) {
+        return (int) (f >>> 12) & 0x1F;
+    }
+
+    private static int minute(long f) {
+        return (int) (f >>> 6) & 0x3F;
+    }
+
+    private static int second(long f) {
+        return (int) f & 0x3F;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Same computation as {@link LocalDate#toEpochDay()}, for years 1 to 9999
+     */
+    static long epochDay(int year, int month, int day) {
+        long total = 365L * year;
+        total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
@@ -0,0 +1,37 @@
+package com.maemlab.craftbox;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a file or digest operation, see {@link IoMetrics.Operation}
+ */
+@Name("com.maemlab.craftbox.FileIO")
+@Label("Craftbox File I/O")
+@Category({"Craftbox", "I/O"})
+@Description("File and digest operations of the Craftbox library")
+final class IoEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("Files")
+    long files;
+
+    @Label("Error")
+    String error;
+}
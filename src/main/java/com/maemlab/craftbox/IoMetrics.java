@@ -0,0 +1,65 @@
+package com.maemlab.craftbox;
+
+/**
+ * Receives the outcome of the file and digest operations of the library, e.g. to feed a metrics registry.
+ * <p>
+ * At most one instance is installed at a time. While none is installed, and no Flight Recorder recording has the
+ * {@code com.maemlab.craftbox.FileIO} event enabled, instrumented operations only pay a volatile read.
+ * Implementations are called on the thread that ran the operation and must be thread-safe and quick;
+ * {@link IoStatistics} is a ready-made one.
+ *
+ * <pre>{@code
+ * IoStatistics stats = new IoStatistics();
+ * IoMetrics.install(stats);
+ * ...
+ * IoStatistics.OperationStats digests = stats.snapshot(IoMetrics.Operation.DIGEST);
+ * }</pre>
+ */
+public interface IoMetrics {
+
+    /**
+     * Kinds of instrumented operations
+     */
+    enum Operation {
+        /** {@link DigestUtils#calculateDigest} */
+        DIGEST,
+        /** {@link FileOperations#copyFile} */
+        COPY,
+        /** {@link FileOperations#listFiles} and {@link FileOperations#listFilesByExtension} */
+        LIST,
+        /** {@link FileOperations#readSmallTextFile} and {@link FileOperations#readSmallTextFileToList} */
+        READ,
+        /** {@link FileOperations#saveJsonStrToFile} and {@link FileOperations#saveJsonStrToFileAtomic} */
+        WRITE,
+        /** {@link FileOperations#deleteFile}, {@link FileOperations#deleteFiles} and {@link FileOperations#deleteDir} */
+        DELETE
+    }
+
+    /**
+     * Called once at the end of each operation, whether it succeeded or not
+     *
+     * @param operation the kind of operation
+     * @param nanos the duration of the operation
+     * @param bytesRead the bytes read from disk, when known
+     * @param bytesWritten the bytes written to disk
+     * @param files the number of files visited, copied or deleted
+     * @param error the error that ended the operation, or that was collected by it, null on success
+     */
+    void record(Operation operation, long nanos, long bytesRead, long bytesWritten, long files, Throwable error);
+
+    /**
+     * Installs the metrics receiving the operations from now on, replacing the current one
+     *
+     * @param metrics the metrics, or null to disable them
+     */
+    static void install(IoMetrics metrics) {
+        IoProbe.metrics = metrics;
+    }
+
+    /**
+     * @return the installed metrics, or null
+     */
+    static IoMetrics installed() {
+        return IoProbe.metrics;
+    }
+}
@@ -0,0 +1,152 @@
+package com.maemlab.craftbox;
+
+import java.io.IOException;
+
+/**
+ * Measures one instrumented operation and reports it to the installed {@link IoMetrics} and to Flight Recorder.
+ * <p>
+ * When neither is listening, {@link #begin} returns a shared inert probe, so the instrumented code costs
+ * a volatile read and a few no-op calls. Usage:
+ *
+ * <pre>{@code
+ * return IoProbe.measure(Operation.READ, path, probe -> {
+ *     ...
+ *     probe.read(n);
+ *     return result;
+ * });
+ * }</pre>
+ * Figures reported to the probe must come from data already at hand: an extra call that can fail (e.g. a stat of
+ * the file) would make enabling the metrics change the outcome of the operation.
+ */
+final class IoProbe {
+    static volatile IoMetrics metrics;
+
+    /**
+     * Probe that records nothing, for code paths that are not instrumented
+     */
+    static final IoProbe NONE = new IoProbe(null, null, null, null);
+
+    private final IoMetrics.Operation operation;
+    private final Object target;
+    private final IoMetrics sink;
+    private final IoEvent event;
+    private final long start;
+    private long bytesRead;
+    private long bytesWritten;
+    private long files;
+    private Throwable error;
+
+    private IoProbe(IoMetrics.Operation operation, Object target, IoMetrics sink, IoEvent event) {
+        this.operation = operation;
+        this.target = target;
+        this.sink = sink;
+        this.event = event;
+        this.start = event == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Body of a measured operation
+     */
+    @FunctionalInterface
+    interface Action<T> {
+        T run(IoProbe probe) throws IOException;
+    }
+
+    /**
+     * Runs an operation under a probe, recording its duration and the error it throws, if any
+     *
+     * @param operation the kind of operation
+     * @param target the file or directory, described by its toString() in the recorded event
+     * @param action the operation, reporting its figures to the probe it receives
+     * @return the result of the action
+     * @throws IOException if the action throws it
+     */
+    static <T> T measure(IoMetrics.Operation operation, Object target, Action<T> action) throws IOException {
+        IoProbe probe = begin(operation, target);
+        try {
+            return action.run(probe);
+        } catch (IOException | RuntimeException e) {
+            probe.fail(e);
+            throw e;
+        } finally {
+            probe.end();
+        }
+    }
+
+    /**
+     * Starts measuring an operation
+     *
+     * @param operation the kind of operation
+     * @param target the file or directory, described by its toString() in the recorded event
+     * @return the probe, inert if nobody is listening
+     */
+    static IoProbe begin(IoMetrics.Operation operation, Object target) {
+        IoMetrics m = metrics;
+        // Not recording, the JIT removes the event allocation along with isEnabled()
+        IoEvent event = new IoEvent();
+        if (m == null && !event.isEnabled()) {
+            return NONE;
+        }
+        event.begin();
+        return new IoProbe(operation, target, m, event);
+    }
+
+    /**
+     * @return true if the operation is being recorded, so that optional figures are worth computing
+     */
+    boolean isEnabled() {
+        return event != null;
+    }
+
+    // The inert probe is shared between threads, so it must never be written to
+
+    void read(long bytes) {
+        if (event != null) {
+            bytesRead += bytes;
+        }
+    }
+
+    void written(long bytes) {
+        if (event != null) {
+            bytesWritten += bytes;
+        }
+    }
+
+    void files(long count) {
+        if (event != null) {
+            files += count;
+        }
+    }
+
+    /**
+     * Records the error of the operation, keeping the first one
+     */
+    void fail(Throwable e) {
+        if (event != null && error == null) {
+            error = e;
+        }
+    }
+
+    /**
+     * Ends the measure and reports it
+     */
+    void end() {
+        if (event == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        if (sink != null) {
+            sink.record(operation, nanos, bytesRead, bytesWritten, files, error);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.path = String.valueOf(target);
+            event.bytesRead = bytesRead;
+            event.bytesWritten = bytesWritten;
+            event.files = files;
+            event.error = error == null ? null : error.toString();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.maemlab.craftbox;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link IoMetrics} keeping, per operation, striped counters of calls, errors, bytes and files, and a latency
+ * histogram with power-of-two buckets. Recording never locks and never allocates.
+ */
+public final class IoStatistics implements IoMetrics {
+    // Bucket i counts durations in [2^(i-1), 2^i) nanoseconds, bucket 0 counts zero
+    private static final int BUCKETS = 64;
+
+    private final Map<Operation, Counters> counters = new EnumMap<>(Operation.class);
+
+    /**
+     * Totals of one kind of operation
+     *
+     * @param operation the kind of operation
+     * @param count the number of operations
+     * @param errors the number of operations that failed or collected errors
+     * @param bytesRead the total bytes read
+     * @param bytesWritten the total bytes written
+     * @param files the total files visited, copied or deleted
+     * @param totalNanos the total duration
+     * @param latencyHistogram the number of operations per duration bucket; bucket {@code i} holds durations
+     *                         below {@code 2^i} nanoseconds and at least {@code 2^(i-1)}
+     */
+    public record OperationStats(Operation operation, long count, long errors, long bytesRead, long bytesWritten,
+                                 long files, long totalNanos, long[] latencyHistogram) {
+
+        public double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * Returns an upper bound of a latency percentile, within a factor of two
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the upper bound of the bucket holding the percentile, in nanoseconds
+         */
+        public long percentileNanos(double percentile) {
+            long total = 0;
+            for (long c : latencyHistogram) {
+                total += c;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < latencyHistogram.length; i++) {
+                seen += latencyHistogram[i];
+                if (seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : i >= 63 ? Long.MAX_VALUE : 1L << i;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder bytesRead = new LongAdder();
+        final LongAdder bytesWritten = new LongAdder();
+        final LongAdder files = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        Counters() {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+    }
+
+    public IoStatistics() {
+        for (Operation op : Operation.values()) {
+            counters.put(op, new Counters());
+        }
+    }
+
+    @Override
+    public void record(Operation operation, long nanos, long bytesRead, long bytesWritten, long files, Throwable error) {
+        Counters c = counters.get(operation);
+        c.count.increment();
+        if (error != null) {
+            c.errors.increment();
+        }
+        c.bytesRead.add(bytesRead);
+        c.bytesWritten.add(bytesWritten);
+        c.files.add(files);
+        c.nanos.add(nanos);
+        c.histogram[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)))].increment();
+    }
+
+    /**
+     * Returns the totals of one kind of operation. Counters are read one by one while operations may still be
+     * recorded, so the values of a snapshot taken under load can be off by the operations in flight.
+     *
+     * @param operation the kind of operation
+     * @return the totals
+     */
+    public OperationStats snapshot(Operation operation) {
+        Counters c = counters.get(operation);
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = c.histogram[i].sum();
+        }
+        return new OperationStats(operation, c.count.sum(), c.errors.sum(), c.bytesRead.sum(), c.bytesWritten.sum(),
+                c.files.sum(), c.nanos.sum(), histogram);
+    }
+
+    /**
+     * @return the totals of every kind of operation
+     */
+    public Map<Operation, OperationStats> snapshot() {
+        Map<Operation, OperationStats> result = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            result.put(op, snapshot(op));
+        }
+        return result;
+    }
+
+    /**
+     * Sets every counter back to zero
+     */
+    public void reset() {
+        for (Counters c : counters.values()) {
+            c.count.reset();
+            c.errors.reset();
+            c.bytesRead.reset();
+            c.bytesWritten.reset();
+            c.files.reset();
+            c.nanos.reset();
+            for (LongAdder bucket : c.histogram) {
+                bucket.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.maemlab.craftbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads text files too large for {@link FileOperations#readSmallTextFileToList(String)}.
+ * <p>
+ * The file is memory-mapped and split into chunks that end on a line boundary; the chunks are then
+ * decoded in parallel. Lines made only of ASCII bytes take a fast path that skips the charset decoder.
+ * Only charsets where a newline is the single byte {@code 0x0A} and never appears inside a multi-byte
+ * sequence are supported, such as UTF-8, US-ASCII and ISO-8859-x.
+ * As with {@link java.nio.file.Files#readAllLines}, line terminators ({@code \n} or {@code \r\n}) are not
+ * included in the lines.
+ */
+public final class LargeTextFiles {
+    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+    // Longest line whose buffer is kept by the thread: longer lines get a buffer of their own, so that one huge
+    // line does not stay pinned in every pool thread that decoded it
+    private static final int MAX_KEPT_LINE_BUFFER = 64 * 1024;
+    private static final ThreadLocal<byte[]> LINE_BUFFER = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private LargeTextFiles() {}
+
+    /**
+     * Returns a parallel stream of the lines of a UTF-8 file.
+     * Lines are in file order only for ordered terminal operations (e.g. {@code forEachOrdered}, {@code toList}).
+     *
+     * @param file the file to read
+     * @return the stream of lines, to be closed after use
+     * @throws IOException if an I/O error occurs opening or splitting the file
+     */
+    public static Stream<String> lines(Path file) throws IOException {
+        return lines(file, StandardCharsets.UTF_8, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Returns a parallel stream of the lines of a file.
+     * Lines are in file order only for ordered terminal operations (e.g. {@code forEachOrdered}, {@code toList}).
+     *
+     * @param file the file to read
+     * @param encoding the encoding of the file
+     * @param chunkSize the approximate size in bytes of the chunks processed in parallel
+     * @return the stream of lines, to be closed after use
+     * @throws IOException if an I/O error occurs opening or splitting the file
+     */
+    public static Stream<String> lines(Path file, Charset encoding, int chunkSize) throws IOException {
+        if (!Arrays.equals("\n".getBytes(encoding), new byte[] {'\n'})) {
+            throw new IllegalArgumentException("Unsupported encoding: " + encoding);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            List<long[]> chunks = split(channel, chunkSize);
+            return chunks.parallelStream()
+                         .flatMap(c -> chunkLines(channel, c[0], c[1], encoding))
+                         .onClose(() -> {
+                             try {
+                                 channel.close();
+                             } catch (IOException e) {
+                                 throw new UncheckedIOException(e);
+                             }
+                         });
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Passes each line of a file to the consumer, processing chunks in parallel.
+     * The consumer is called concurrently from several threads and lines are not in file order.
+     *
+     * @param file the file to read
+     * @param encoding the encoding of the file
+     * @param consumer the consumer of the lines
+     * @throws IOException if an I/O error occurs reading the file
+     */
+    public static void forEachLine(Path file, Charset encoding, Consumer<String> consumer) throws IOException {
+        try (Stream<String> lines = lines(file, encoding, DEFAULT_CHUNK_SIZE)) {
+            lines.forEach(consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Splits the file into [start, end) ranges of about chunkSize bytes, each ending right after a newline
+     */
+    private static List<long[]> split(FileChannel channel, int chunkSize) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>((int) Math.min(Integer.MAX_VALUE, size / chunkSize + 1));
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize < size ? nextLineStart(channel, start + chunkSize, size, scan) : size;
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Line too long at offset " + start);
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static Stream<String> chunkLines(FileChannel channel, long start, long end, Charset encoding) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var spliterator = new Spliterators.AbstractSpliterator<String>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int position = 0;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super String> action) {
+                int limit = buffer.limit();
+                if (position >= limit) {
+                    return false;
+                }
+                int lineStart = position;
+                boolean ascii = true;
+                int i = lineStart;
+                while (i < limit) {
+                    byte b = buffer.get(i);
+                    if (b == '\n') {
+                        break;
+                    }
+                    ascii &= b >= 0;
+                    i++;
+                }
+                position = i + 1;
+                int lineEnd = i;
+                if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                action.accept(decode(buffer, lineStart, lineEnd - lineStart, ascii, encoding));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    private static String decode(ByteBuffer buffer, int offset, int length, boolean ascii, Charset encoding) {
+        byte[] bytes = LINE_BUFFER.get();
+        if (bytes.length < length) {
+            if (length > MAX_KEPT_LINE_BUFFER) {
+                bytes = new byte[length];
+            } else {
+                bytes = new byte[Math.min(Math.max(length, bytes.length * 2), MAX_KEPT_LINE_BUFFER)];
+                LINE_BUFFER.set(bytes);
+            }
+        }
+        buffer.get(offset, bytes, 0, length);
+        // ASCII bytes map one to one onto Latin-1 chars, which String stores without decoding
+        return new String(bytes, 0, length, ascii ? StandardCharsets.ISO_8859_1 : encoding);
+    }
+}
@@ -0,0 +1,329 @@
+package com.maemlab.craftbox;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Precompiled, immutable membership matchers, the set-based counterpart of {@link Collections#contains}.
+ * <p>
+ * A matcher is built once from a set of values and then answers {@code contains} in constant time, without
+ * boxing and without allocating. Primitive matchers use open addressing over primitive arrays; the String matcher
+ * uses a collision-free (perfect) table for small sets when one can be found quickly, and linear probing otherwise.
+ * <p>
+ * Double matching follows the {@code ==} semantics of {@link Collections#contains(double, double...)}:
+ * {@code 0.0} and {@code -0.0} match each other and {@code NaN} never matches.
+ *
+ * <pre>{@code
+ * private static final Matchers.IntMatcher ALLOWED = Matchers.of(allowedIds);
+ * ...
+ * if (ALLOWED.contains(id)) { ... }
+ * }</pre>
+ */
+public final class Matchers {
+    private static final int MAX_PERFECT_ATTEMPTS = 64;
+    // Collision-free tables become unlikely (and wasteful to search for) beyond small static sets
+    private static final int MAX_PERFECT_SIZE = 64;
+
+    private Matchers() {}
+
+    /**
+     * Builds a matcher for the given ints
+     */
+    public static IntMatcher of(int... values) {
+        return new IntMatcher(values);
+    }
+
+    /**
+     * Builds a matcher for the given longs
+     */
+    public static LongMatcher of(long... values) {
+        return new LongMatcher(values);
+    }
+
+    /**
+     * Builds a matcher for the given doubles
+     */
+    public static DoubleMatcher of(double... values) {
+        return new DoubleMatcher(values);
+    }
+
+    /**
+     * Builds a matcher for the given Strings, ignoring nulls
+     */
+    public static StringMatcher of(String... values) {
+        return new StringMatcher(values);
+    }
+
+    /**
+     * Builds a matcher for the given Strings, ignoring nulls
+     */
+    public static StringMatcher ofStrings(Collection<String> values) {
+        return new StringMatcher(values.toArray(new String[0]));
+    }
+
+    /**
+     * Set of ints. The value 0 is tracked apart since it marks the empty slots.
+     */
+    public static final class IntMatcher {
+        private final int[] table;
+        private final int mask;
+        private final boolean hasZero;
+        private final int size;
+
+        private IntMatcher(int[] values) {
+            table = new int[tableSize(values.length)];
+            mask = table.length - 1;
+            boolean zero = false;
+            int n = 0;
+            for (int v : values) {
+                if (v == 0) {
+                    n += zero ? 0 : 1;
+                    zero = true;
+                    continue;
+                }
+                int i = mix(v) & mask;
+                while (table[i] != 0 && table[i] != v) {
+                    i = (i + 1) & mask;
+                }
+                if (table[i] == 0) {
+                    table[i] = v;
+                    n++;
+                }
+            }
+            hasZero = zero;
+            size = n;
+        }
+
+        public boolean contains(int value) {
+            if (value == 0) {
+                return hasZero;
+            }
+            int i = mix(value) & mask;
+            int v;
+            while ((v = table[i]) != 0) {
+                if (v == value) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        /**
+         * @return the number of distinct values
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Set of longs. The value 0 is tracked apart since it marks the empty slots.
+     */
+    public static final class LongMatcher {
+        private final long[] table;
+        private final int mask;
+        private final boolean hasZero;
+        private final int size;
+
+        private LongMatcher(long[] values) {
+            table = new long[tableSize(values.length)];
+            mask = table.length - 1;
+            boolean zero = false;
+            int n = 0;
+            for (long v : values) {
+                if (v == 0) {
+                    n += zero ? 0 : 1;
+                    zero = true;
+                    continue;
+                }
+                int i = mix(v) & mask;
+                while (table[i] != 0 && table[i] != v) {
+                    i = (i + 1) & mask;
+                }
+                if (table[i] == 0) {
+                    table[i] = v;
+                    n++;
+                }
+            }
+            hasZero = zero;
+            size = n;
+        }
+
+        public boolean contains(long value) {
+            if (value == 0) {
+                return hasZero;
+            }
+            int i = mix(value) & mask;
+            long v;
+            while ((v = table[i]) != 0) {
+                if (v == value) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        /**
+         * @return the number of distinct values
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Set of doubles matched with {@code ==}, stored as their bit patterns
+     */
+    public static final class DoubleMatcher {
+        private final LongMatcher bits;
+
+        private DoubleMatcher(double[] values) {
+            long[] keys = new long[values.length];
+            int n = 0;
+            for (double v : values) {
+                if (!Double.isNaN(v)) {
+                    keys[n++] = key(v);
+                }
+            }
+            bits = new LongMatcher(Arrays.copyOf(keys, n));
+        }
+
+        public boolean contains(double value) {
+            return !Double.isNaN(value) && bits.contains(key(value));
+        }
+
+        /**
+         * @return the number of distinct values
+         */
+        public int size() {
+            return bits.size();
+        }
+
+        private static long key(double v) {
+            // -0.0 == 0.0, so both must map to the same key
+            return v == 0.0 ? 0L : Double.doubleToRawLongBits(v);
+        }
+    }
+
+    /**
+     * Set of Strings. Lookups compare the cached hash code and the length before the contents.
+     */
+    public static final class StringMatcher {
+        private final String[] table;
+        private final int mask;
+        private final int seed;
+        private final boolean perfect;
+        private final int size;
+
+        private StringMatcher(String[] values) {
+            String[] distinct = Arrays.stream(values).filter(Objects::nonNull).distinct().toArray(String[]::new);
+            size = distinct.length;
+
+            // Look for a seed that sends every value to its own slot, so a lookup is a single probe
+            int tableSize = tableSize(distinct.length) * 4;
+            String[] perfectTable = null;
+            int foundSeed = 0;
+            for (int attempt = 0; distinct.length <= MAX_PERFECT_SIZE && attempt < MAX_PERFECT_ATTEMPTS && perfectTable == null; attempt++) {
+                int s = 0x9E3779B9 * (attempt + 1);
+                perfectTable = tryPerfect(distinct, tableSize, s);
+                foundSeed = s;
+            }
+
+            if (perfectTable != null) {
+                table = perfectTable;
+                seed = foundSeed;
+                perfect = true;
+            } else {
+                table = new String[tableSize(distinct.length)];
+                seed = 0;
+                perfect = false;
+                int m = table.length - 1;
+                for (String v : distinct) {
+                    int i = mix(v.hashCode()) & m;
+                    while (table[i] != null) {
+                        i = (i + 1) & m;
+                    }
+                    table[i] = v;
+                }
+            }
+            mask = table.length - 1;
+        }
+
+        public boolean contains(String value) {
+            if (value == null) {
+                return false;
+            }
+            int h = value.hashCode();
+            if (perfect) {
+                String v = table[mix(h ^ seed) & mask];
+                return v != null && matches(v, h, value);
+            }
+            int i = mix(h) & mask;
+            String v;
+            while ((v = table[i]) != null) {
+                if (matches(v, h, value)) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        /**
+         * @return the number of distinct values
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return true if the matcher found a collision-free table for its values
+         */
+        public boolean isPerfect() {
+            return perfect;
+        }
+
+        private static boolean matches(String candidate, int hash, String value) {
+            return candidate.hashCode() == hash && candidate.length() == value.length() && candidate.equals(value);
+        }
+
+        private static String[] tryPerfect(String[] values, int tableSize, int seed) {
+            String[] t = new String[tableSize];
+            int m = tableSize - 1;
+            for (String v : values) {
+                int i = mix(v.hashCode() ^ seed) & m;
+                if (t[i] != null) {
+                    return null;
+                }
+                t[i] = v;
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Power of two with a load factor of at most 0.5
+     */
+    private static int tableSize(int n) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, n) * 2 - 1) << 1);
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    private static int mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return (int) (h ^ (h >>> 33));
+    }
+}
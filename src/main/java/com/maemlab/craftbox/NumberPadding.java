@@ -0,0 +1,217 @@
+package com.maemlab.craftbox;
+
+/**
+ * Fixed-width formatting of integers padded with zeros or spaces, a fast replacement for
+ * {@code String.format("%0<width>d")} and {@code String.format("%<width>d")}.
+ * <p>
+ * The results are the same as those format strings: the width is a minimum, wider values are written in full,
+ * and the minus sign of negative values goes before the zeros ({@code -0042}) or after the spaces ({@code "  -42"}).
+ * Digits are written two at a time from a lookup table, without intermediate strings: straight into char arrays,
+ * through a per-thread scratch array for byte arrays and StringBuilders.
+ * Int values use the same methods through widening.
+ */
+public final class NumberPadding {
+    // Scratch for the byte[] and StringBuilder targets, which go through the char[] writer; wider values
+    // get an array of their own
+    private static final int SCRATCH_SIZE = 64;
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[SCRATCH_SIZE]);
+
+    private NumberPadding() {}
+
+    /**
+     * Returns the number of chars a padded value takes
+     *
+     * @param value the value
+     * @param width the minimum width
+     * @return the length of the padded value
+     */
+    public static int length(long value, int width) {
+        return Math.max(width, digits(value) + (value < 0 ? 1 : 0));
+    }
+
+    //*************
+    //*  Strings  *
+    //*************
+
+    /**
+     * Pads a value with leading zeros, like {@code String.format("%0<width>d", value)}
+     *
+     * @param value the value
+     * @param width the minimum width
+     * @return the padded value (e.g., 5 with width 3 becomes "005")
+     */
+    public static String zeroPad(long value, int width) {
+        char[] chars = new char[length(value, width)];
+        write(value, width, '0', chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Pads a value with leading spaces, like {@code String.format("%<width>d", value)}
+     *
+     * @param value the value
+     * @param width the minimum width
+     * @return the padded value (e.g., 5 with width 3 becomes "  5")
+     */
+    public static String spacePad(long value, int width) {
+        char[] chars = new char[length(value, width)];
+        write(value, width, ' ', chars, 0);
+        return new String(chars);
+    }
+
+    //********************
+    //*  StringBuilders  *
+    //********************
+
+    /**
+     * Appends a value padded with leading zeros
+     *
+     * @param sb the StringBuilder to append to
+     * @param value the value
+     * @param width the minimum width
+     * @return the same StringBuilder
+     */
+    public static StringBuilder appendZeroPadded(StringBuilder sb, long value, int width) {
+        return append(sb, value, width, '0');
+    }
+
+    /**
+     * Appends a value padded with leading spaces
+     *
+     * @param sb the StringBuilder to append to
+     * @param value the value
+     * @param width the minimum width
+     * @return the same StringBuilder
+     */
+    public static StringBuilder appendSpacePadded(StringBuilder sb, long value, int width) {
+        return append(sb, value, width, ' ');
+    }
+
+    //************
+    //*  Arrays  *
+    //************
+
+    /**
+     * Writes a value padded with leading zeros into a char array
+     *
+     * @param value the value
+     * @param width the minimum width
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of chars written
+     */
+    public static int zeroPad(long value, int width, char[] dst, int offset) {
+        return write(value, width, '0', dst, offset);
+    }
+
+    /**
+     * Writes a value padded with leading spaces into a char array
+     *
+     * @param value the value
+     * @param width the minimum width
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of chars written
+     */
+    public static int spacePad(long value, int width, char[] dst, int offset) {
+        return write(value, width, ' ', dst, offset);
+    }
+
+    /**
+     * Writes a value padded with leading zeros into a byte array as ASCII
+     *
+     * @param value the value
+     * @param width the minimum width
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of bytes written
+     */
+    public static int zeroPad(long value, int width, byte[] dst, int offset) {
+        return write(value, width, (byte) '0', dst, offset);
+    }
+
+    /**
+     * Writes a value padded with leading spaces into a byte array as ASCII
+     *
+     * @param value the value
+     * @param width the minimum width
+     * @param dst the destination array
+     * @param offset the offset in the destination array
+     * @return the number of bytes written
+     */
+    public static int spacePad(long value, int width, byte[] dst, int offset) {
+        return write(value, width, (byte) ' ', dst, offset);
+    }
+
+    //***************
+    //*  Internals  *
+    //***************
+
+    // The digits are computed on the negated value, so Long.MIN_VALUE needs no special case
+
+    private static int write(long value, int width, char pad, char[] dst, int offset) {
+        int digits = digits(value);
+        int sign = value < 0 ? 1 : 0;
+        int length = Math.max(width, digits + sign);
+        int end = offset + length;
+        int p = offset;
+        if (pad == '0' && sign != 0) {
+            dst[p++] = '-';
+        }
+        int padEnd = end - digits - (pad == '0' ? 0 : sign);
+        while (p < padEnd) {
+            dst[p++] = pad;
+        }
+        if (pad != '0' && sign != 0) {
+            dst[p] = '-';
+        }
+        long q = value < 0 ? value : -value;
+        p = end;
+        while (q <= -100) {
+            long next = q / 100;
+            int r = (int) (next * 100 - q);
+            q = next;
+            dst[--p] = DigitPairs.ONES[r];
+            dst[--p] = DigitPairs.TENS[r];
+        }
+        int r = (int) -q;
+        dst[--p] = DigitPairs.ONES[r];
+        if (r >= 10) {
+            dst[--p] = DigitPairs.TENS[r];
+        }
+        return length;
+    }
+
+    private static int write(long value, int width, byte pad, byte[] dst, int offset) {
+        char[] chars = scratch(length(value, width));
+        int length = write(value, width, (char) pad, chars, 0);
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = (byte) chars[i];
+        }
+        return length;
+    }
+
+    private static StringBuilder append(StringBuilder sb, long value, int width, char pad) {
+        char[] chars = scratch(length(value, width));
+        return sb.append(chars, 0, write(value, width, pad, chars, 0));
+    }
+
+    private static char[] scratch(int length) {
+        return length <= SCRATCH_SIZE ? SCRATCH.get() : new char[length];
+    }
+
+    /**
+     * Number of decimal digits of the value, without sign
+     */
+    private static int digits(long value) {
+        long q = value < 0 ? value : -value;
+        long p = -10;
+        for (int i = 1; i < 19; i++) {
+            if (q > p) {
+                return i;
+            }
+            p *= 10;
+        }
+        return 19;
+    }
+}
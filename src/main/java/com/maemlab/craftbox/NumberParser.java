@@ -0,0 +1,453 @@
+package com.maemlab.craftbox;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.Stream;
+
+/**
+ * Exception-free validation and parsing of int, long and decimal values, one value or whole columns at a time.
+ * <p>
+ * Values are scanned once, char by char, and bad input is reported with a {@link Status} or a caller-chosen
+ * sentinel instead of a {@code NumberFormatException}, so rejecting dirty data costs no more than accepting it.
+ * The accepted syntax is that of {@link Long#parseLong(String)} and {@link Double#parseDouble(String)} restricted
+ * to ASCII digits: an optional sign, no surrounding whitespace, and for decimals an optional fraction and exponent
+ * ({@code -12}, {@code +3.5}, {@code .5}, {@code 1e-3}). {@code NaN}, {@code Infinity} and hex values are rejected.
+ *
+ * <pre>{@code
+ * NumberParser.Result r = new NumberParser.Result();
+ * for (String s : values) {
+ *     if (NumberParser.parseLong(s, 0, 999_999, r) == Status.VALID) {
+ *         total += r.longValue();
+ *     }
+ * }
+ * }</pre>
+ */
+public final class NumberParser {
+    // Powers of ten exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+
+    private NumberParser() {}
+
+    /**
+     * Outcome of parsing a value
+     */
+    public enum Status {
+        /** The value is well formed and within range */
+        VALID,
+        /** The value is null or empty */
+        EMPTY,
+        /** The value is not a number */
+        MALFORMED,
+        /** The value is a number outside the requested range, or outside the range of its type */
+        OUT_OF_RANGE
+    }
+
+    /**
+     * Reusable holder of the outcome of a parse, so that parsing allocates nothing.
+     * The value is only meaningful when the status is {@link Status#VALID}.
+     */
+    public static final class Result {
+        private Status status = Status.EMPTY;
+        private long longValue;
+        private double doubleValue;
+
+        public Status status() {
+            return status;
+        }
+
+        public boolean isValid() {
+            return status == Status.VALID;
+        }
+
+        /**
+         * @return the value parsed by an integer parser
+         */
+        public long longValue() {
+            return longValue;
+        }
+
+        /**
+         * @return the value parsed by an integer parser, narrowed to int
+         */
+        public int intValue() {
+            return (int) longValue;
+        }
+
+        /**
+         * @return the value parsed by the decimal parser, or the integer value as a double
+         */
+        public double doubleValue() {
+            return doubleValue;
+        }
+
+        private Status set(Status status) {
+            this.status = status;
+            return status;
+        }
+    }
+
+    /**
+     * Values of a parsed column of integers
+     *
+     * @param values the parsed values, 0 for invalid rows
+     * @param valid the rows holding a valid value
+     */
+    public record LongColumn(long[] values, BitSet valid) {
+        public int size() {
+            return values.length;
+        }
+
+        public int invalidCount() {
+            return values.length - valid.cardinality();
+        }
+    }
+
+    /**
+     * Values of a parsed column of decimals
+     *
+     * @param values the parsed values, NaN for invalid rows
+     * @param valid the rows holding a valid value
+     */
+    public record DecimalColumn(double[] values, BitSet valid) {
+        public int size() {
+            return values.length;
+        }
+
+        public int invalidCount() {
+            return values.length - valid.cardinality();
+        }
+    }
+
+    //****************
+    //*  Validation  *
+    //****************
+
+    /**
+     * @return true if the text is an int
+     */
+    public static boolean isInt(CharSequence s) {
+        return isLong(s, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return true if the text is a long
+     */
+    public static boolean isLong(CharSequence s) {
+        return isLong(s, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return true if the text is an integer between min and max, inclusive
+     */
+    public static boolean isLong(CharSequence s, long min, long max) {
+        return parseLong(s, min, max, new Result()) == Status.VALID;
+    }
+
+    /**
+     * @return true if the text is a finite decimal number
+     */
+    public static boolean isDecimal(CharSequence s) {
+        return isDecimal(s, -Double.MAX_VALUE, Double.MAX_VALUE);
+    }
+
+    /**
+     * @return true if the text is a decimal number between min and max, inclusive
+     */
+    public static boolean isDecimal(CharSequence s, double min, double max) {
+        return parseDecimal(s, min, max, new Result()) == Status.VALID;
+    }
+
+    //*************
+    //*  Parsing  *
+    //*************
+
+    /**
+     * Parses an int
+     *
+     * @param s the text to parse, may be null
+     * @param invalidValue the value returned for invalid text
+     * @return the value, or invalidValue
+     */
+    public static int parseInt(CharSequence s, int invalidValue) {
+        Result r = new Result();
+        return parseLong(s, Integer.MIN_VALUE, Integer.MAX_VALUE, r) == Status.VALID ? r.intValue() : invalidValue;
+    }
+
+    /**
+     * Parses a long
+     *
+     * @param s the text to parse, may be null
+     * @param invalidValue the value returned for invalid text
+     * @return the value, or invalidValue
+     */
+    public static long parseLong(CharSequence s, long invalidValue) {
+        Result r = new Result();
+        return parseLong(s, Long.MIN_VALUE, Long.MAX_VALUE, r) == Status.VALID ? r.longValue() : invalidValue;
+    }
+
+    /**
+     * Parses a decimal number
+     *
+     * @param s the text to parse, may be null
+     * @param invalidValue the value returned for invalid text, e.g. {@code Double.NaN}
+     * @return the value, or invalidValue
+     */
+    public static double parseDecimal(CharSequence s, double invalidValue) {
+        Result r = new Result();
+        return parseDecimal(s, -Double.MAX_VALUE, Double.MAX_VALUE, r) == Status.VALID ? r.doubleValue() : invalidValue;
+    }
+
+    /**
+     * Parses an integer and checks its range
+     *
+     * @param s the text to parse, may be null
+     * @param min the minimum accepted value
+     * @param max the maximum accepted value
+     * @param out receives the status and the value
+     * @return the status, also stored in out
+     */
+    public static Status parseLong(CharSequence s, long min, long max, Result out) {
+        int length = s == null ? 0 : s.length();
+        if (length == 0) {
+            return out.set(Status.EMPTY);
+        }
+        int i = 0;
+        char c = s.charAt(0);
+        boolean negative = c == '-';
+        if (negative || c == '+') {
+            if (length == 1) {
+                return out.set(Status.MALFORMED);
+            }
+            i++;
+        }
+        // Accumulate negatively, since the negative range is the larger one
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limit / 10;
+        long result = 0;
+        boolean overflow = false;
+        for (; i < length; i++) {
+            int d = s.charAt(i) - '0';
+            if (Integer.compareUnsigned(d, 9) > 0) {
+                return out.set(Status.MALFORMED);
+            }
+            if (result < multiplyMin || result * 10 < limit + d) {
+                // Keep scanning: a malformed tail still makes the whole value malformed
+                overflow = true;
+                continue;
+            }
+            result = result * 10 - d;
+        }
+        long value = negative ? result : -result;
+        if (overflow || value < min || value > max) {
+            return out.set(Status.OUT_OF_RANGE);
+        }
+        out.longValue = value;
+        out.doubleValue = value;
+        return out.set(Status.VALID);
+    }
+
+    /**
+     * Parses a decimal number and checks its range. Values beyond the double range are out of range.
+     *
+     * @param s the text to parse, may be null
+     * @param min the minimum accepted value
+     * @param max the maximum accepted value
+     * @param out receives the status and the value
+     * @return the status, also stored in out
+     */
+    public static Status parseDecimal(CharSequence s, double min, double max, Result out) {
+        int length = s == null ? 0 : s.length();
+        if (length == 0) {
+            return out.set(Status.EMPTY);
+        }
+        int i = 0;
+        char c = s.charAt(0);
+        boolean negative = c == '-';
+        if (negative || c == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean anyDigit = false;
+        for (; i < length && isDigit(s.charAt(i)); i++) {
+            anyDigit = true;
+            int d = s.charAt(i) - '0';
+            if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + d;
+                mantissaDigits += mantissa == 0 ? 0 : 1;
+            } else {
+                exponent++;
+                exact &= d == 0;
+            }
+        }
+        if (i < length && s.charAt(i) == '.') {
+            for (i++; i < length && isDigit(s.charAt(i)); i++) {
+                anyDigit = true;
+                int d = s.charAt(i) - '0';
+                if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + d;
+                    mantissaDigits += mantissa == 0 ? 0 : 1;
+                    exponent--;
+                } else {
+                    exact &= d == 0;
+                }
+            }
+        }
+        if (!anyDigit) {
+            return out.set(Status.MALFORMED);
+        }
+        if (i < length && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = i < length && s.charAt(i) == '-';
+            if (i < length && (negativeExponent || s.charAt(i) == '+')) {
+                i++;
+            }
+            if (i == length) {
+                return out.set(Status.MALFORMED);
+            }
+            int e = 0;
+            for (; i < length && isDigit(s.charAt(i)); i++) {
+                // Saturate: anything this large is already zero or infinite
+                e = Math.min(e * 10 + s.charAt(i) - '0', 100_000);
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (i != length) {
+            return out.set(Status.MALFORMED);
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exact && mantissa <= MAX_EXACT_MANTISSA && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            // Both operands are exact, so a single multiplication or division is correctly rounded
+            value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            // Rare long or extreme values: the syntax is already checked, so this cannot throw
+            value = Math.abs(Double.parseDouble(s.toString()));
+        }
+        value = negative ? -value : value;
+        if (Double.isInfinite(value) || value < min || value > max) {
+            return out.set(Status.OUT_OF_RANGE);
+        }
+        out.doubleValue = value;
+        out.longValue = (long) value;
+        return out.set(Status.VALID);
+    }
+
+    //******************
+    //*  Bulk columns  *
+    //******************
+
+    /**
+     * Parses a column of integers
+     *
+     * @param column the values to parse, null entries are invalid
+     * @param min the minimum accepted value
+     * @param max the maximum accepted value
+     * @return the parsed values and the valid rows
+     */
+    public static LongColumn parseLongs(CharSequence[] column, long min, long max) {
+        long[] values = new long[column.length];
+        BitSet valid = new BitSet(column.length);
+        Result r = new Result();
+        for (int i = 0; i < column.length; i++) {
+            if (parseLong(column[i], min, max, r) == Status.VALID) {
+                values[i] = r.longValue();
+                valid.set(i);
+            }
+        }
+        return new LongColumn(values, valid);
+    }
+
+    /**
+     * Parses a stream of integers, in encounter order
+     *
+     * @param column the values to parse, null entries are invalid
+     * @param min the minimum accepted value
+     * @param max the maximum accepted value
+     * @return the parsed values and the valid rows
+     */
+    public static LongColumn parseLongs(Stream<? extends CharSequence> column, long min, long max) {
+        var collector = new Object() {
+            long[] values = new long[1024];
+            final BitSet valid = new BitSet();
+            final Result r = new Result();
+            int size;
+        };
+        column.sequential().forEachOrdered(s -> {
+            if (collector.size == collector.values.length) {
+                collector.values = Arrays.copyOf(collector.values, collector.size * 2);
+            }
+            if (parseLong(s, min, max, collector.r) == Status.VALID) {
+                collector.values[collector.size] = collector.r.longValue();
+                collector.valid.set(collector.size);
+            }
+            collector.size++;
+        });
+        return new LongColumn(Arrays.copyOf(collector.values, collector.size), collector.valid);
+    }
+
+    /**
+     * Parses a column of decimals
+     *
+     * @param column the values to parse, null entries are invalid
+     * @param min the minimum accepted value
+     * @param max the maximum accepted value
+     * @return the parsed values and the valid rows
+     */
+    public static DecimalColumn parseDecimals(CharSequence[] column, double min, double max) {
+        double[] values = new double[column.length];
+        BitSet valid = new BitSet(column.length);
+        Result r = new Result();
+        for (int i = 0; i < column.length; i++) {
+            if (parseDecimal(column[i], min, max, r) == Status.VALID) {
+                values[i] = r.doubleValue();
+                valid.set(i);
+            } else {
+                values[i] = Double.NaN;
+            }
+        }
+        return new DecimalColumn(values, valid);
+    }
+
+    /**
+     * Parses a stream of decimals, in encounter order
+     *
+     * @param column the values to parse, null entries are invalid
+     * @param min the minimum accepted value
+     * @param max the maximum accepted value
+     * @return the parsed values and the valid rows
+     */
+    public static DecimalColumn parseDecimals(Stream<? extends CharSequence> column, double min, double max) {
+        var collector = new Object() {
+            double[] values = new double[1024];
+            final BitSet valid = new BitSet();
+            final Result r = new Result();
+            int size;
+        };
+        column.sequential().forEachOrdered(s -> {
+            if (collector.size == collector.values.length) {
+                collector.values = Arrays.copyOf(collector.values, collector.size * 2);
+            }
+            boolean ok = parseDecimal(s, min, max, collector.r) == Status.VALID;
+            collector.values[collector.size] = ok ? collector.r.doubleValue() : Double.NaN;
+            if (ok) {
+                collector.valid.set(collector.size);
+            }
+            collector.size++;
+        });
+        return new DecimalColumn(Arrays.copyOf(collector.values, collector.size), collector.valid);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
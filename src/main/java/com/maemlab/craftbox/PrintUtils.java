@@ -4,24 +4,90 @@ import java.util.Enumeration;
 import java.util.Properties;
 
 public final class PrintUtils {
+	private static final int ASYNC_CAPACITY = 8192;
+
+	private static volatile AsyncLogSink sink;
 
 	private PrintUtils() {
 	}
 
 	public static void log(Object o) {
-		System.out.print(o);
+		AsyncLogSink s = sink;
+		if (s == null || !s.print(String.valueOf(o)) && s.isClosed()) {
+			System.out.print(o);
+		}
 	}
 
 	public static void logln(Object o) {
-		System.out.println(o);
+		AsyncLogSink s = sink;
+		if (s == null || !s.println(String.valueOf(o)) && s.isClosed()) {
+			System.out.println(o);
+		}
 	}
 
 	public static void printProperties(Properties p) {
 		Enumeration<?> e = p.propertyNames();
+		StringBuilder sb = new StringBuilder();
+		String separator = System.lineSeparator();
 
 		while (e.hasMoreElements()) {
 			String key = (String) e.nextElement();
-			logln(key + ": " + p.getProperty(key));
+			sb.append(key).append(": ").append(p.getProperty(key)).append(separator);
+		}
+		log(sb);
+	}
+
+	//****************
+	//*  Async sink  *
+	//****************
+
+	/**
+	 * Routes {@link #log}, {@link #logln} and {@link #printProperties} to an asynchronous sink on the standard
+	 * output, which waits for free space when full. Does nothing if a sink is already installed.
+	 *
+	 * @return the installed sink
+	 */
+	public static synchronized AsyncLogSink enableAsync() {
+		if (sink == null) {
+			sink = AsyncLogSink.stdout(ASYNC_CAPACITY, AsyncLogSink.OverflowPolicy.BLOCK);
+		}
+		return sink;
+	}
+
+	/**
+	 * Routes {@link #log}, {@link #logln} and {@link #printProperties} to the given sink,
+	 * closing the previous one if any
+	 *
+	 * @param newSink the sink
+	 */
+	public static synchronized void enableAsync(AsyncLogSink newSink) {
+		AsyncLogSink previous = sink;
+		sink = newSink;
+		if (previous != null && previous != newSink) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Writes the pending messages, closes the sink and goes back to writing straight to {@code System.out}
+	 */
+	public static synchronized void disableAsync() {
+		AsyncLogSink previous = sink;
+		sink = null;
+		if (previous != null) {
+			previous.close();
+		}
+	}
+
+	/**
+	 * Waits until the messages logged so far have been written
+	 */
+	public static void flush() {
+		AsyncLogSink s = sink;
+		if (s != null) {
+			s.flush();
+		} else {
+			System.out.flush();
 		}
 	}
 }
@@ -0,0 +1,159 @@
+package com.maemlab.craftbox;
+
+/**
+ * Plain loop implementation of {@link BulkKernels}, used when the Vector API is not enabled
+ */
+final class ScalarKernels implements BulkKernels {
+
+    @Override
+    public int indexOf(int[] a, int value) {
+        return indexOf(a, value, 0);
+    }
+
+    @Override
+    public int indexOf(long[] a, long value) {
+        return indexOf(a, value, 0);
+    }
+
+    @Override
+    public int indexOf(double[] a, double value) {
+        return indexOf(a, value, 0);
+    }
+
+    @Override
+    public int count(int[] a, int value) {
+        int n = 0;
+        for (int v : a) {
+            n += v == value ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Override
+    public int count(long[] a, long value) {
+        int n = 0;
+        for (long v : a) {
+            n += v == value ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Override
+    public int count(double[] a, double value) {
+        int n = 0;
+        for (double v : a) {
+            n += v == value ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Override
+    public boolean containsAny(int[] a, int[] values) {
+        var matcher = Matchers.of(values);
+        for (int v : a) {
+            if (matcher.contains(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsAny(long[] a, long[] values) {
+        var matcher = Matchers.of(values);
+        for (long v : a) {
+            if (matcher.contains(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsAny(double[] a, double[] values) {
+        var matcher = Matchers.of(values);
+        for (double v : a) {
+            if (matcher.contains(v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int mask(int[] a, int value, long[] mask) {
+        return mask(a, value, mask, 0);
+    }
+
+    @Override
+    public int mask(long[] a, long value, long[] mask) {
+        return mask(a, value, mask, 0);
+    }
+
+    @Override
+    public int mask(double[] a, double value, long[] mask) {
+        return mask(a, value, mask, 0);
+    }
+
+    // The from variants finish the tail left over by the vector kernels
+
+    static int indexOf(int[] a, int value, int from) {
+        for (int i = from; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(long[] a, long value, int from) {
+        for (int i = from; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(double[] a, double value, int from) {
+        for (int i = from; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int mask(int[] a, int value, long[] mask, int from) {
+        int n = 0;
+        for (int i = from; i < a.length; i++) {
+            if (a[i] == value) {
+                mask[i >>> 6] |= 1L << i;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    static int mask(long[] a, long value, long[] mask, int from) {
+        int n = 0;
+        for (int i = from; i < a.length; i++) {
+            if (a[i] == value) {
+                mask[i >>> 6] |= 1L << i;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    static int mask(double[] a, double value, long[] mask, int from) {
+        int n = 0;
+        for (int i = from; i < a.length; i++) {
+            if (a[i] == value) {
+                mask[i >>> 6] |= 1L << i;
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -1,6 +1,10 @@
 package com.maemlab.craftbox;
 
 public final class StringUtils {
+	private static volatile SeparatorTokenizer lastTokenizer;
+
+	private record SeparatorTokenizer(String separator, Tokenizer tokenizer) {
+	}
 
 	private StringUtils() {}
 
@@ -9,31 +13,37 @@ public final class StringUtils {
 	 *
 	 * @param toPad the integer to pad
 	 * @return a zero-padded string (e.g., 5 becomes "005")
+	 * @see NumberPadding
 	 */
 	public static String zeroPadding(int toPad) {
-		return String.format("%03d", toPad);
+		return NumberPadding.zeroPad(toPad, 3);
 	}
 
 	/**
-	 * Pads a string with leading zeros to create a 3-digit string
+	 * Pads an integer given as text with leading zeros to create a 3-digit string, as {@link #zeroPadding(int)}
 	 *
-	 * @param toPad the string to pad
-	 * @return a zero-padded string (e.g., "5" becomes "005")
+	 * @param toPad the integer to pad, as text
+	 * @return a zero-padded string (e.g., "5" and "+5" become "005")
+	 * @throws IllegalArgumentException if the text is not an integer
 	 */
 	public static String zeroPadding(String toPad) {
-		return String.format("%03d", toPad);
+		var result = new NumberParser.Result();
+		if (NumberParser.parseLong(toPad, Long.MIN_VALUE, Long.MAX_VALUE, result) != NumberParser.Status.VALID) {
+			throw new IllegalArgumentException("Not an integer: " + toPad);
+		}
+		return NumberPadding.zeroPad(result.longValue(), 3);
 	}
 
 	/**
 	 * Counts the number of words in a string based on a separator
 	 *
 	 * @param what the string to analyze
-	 * @param separator the separator used to split words
+	 * @param separator the separator used to split words, with the meaning it has in {@link String#split(String)}
 	 * @return the number of words found
+	 * @see Tokenizer
 	 */
-	public static double getWordCount(String what, String separator) {
-		String[] str = what.split(separator);
-		return str.length;
+	public static int getWordCount(String what, String separator) {
+		return tokenizer(separator).count(what);
 	}
 
 	/**
@@ -41,17 +51,27 @@ public final class StringUtils {
 	 *
 	 * @param what the string to analyze
 	 * @param index the position of the word to retrieve (starting from 1)
-	 * @param separator the separator used to split words
+	 * @param separator the separator used to split words, with the meaning it has in {@link String#split(String)}
 	 * @return the word at the specified position, or empty string if index is out of bounds
+	 * @see Tokenizer
 	 */
 	public static String getWordNum(String what, int index, String separator) {
-		String[] str = what.split(separator);
-		if (index > 0 && index <= str.length) {
-			return str[index - 1];
-		} else {
-			return "";
+		CharSequence word = tokenizer(separator).token(what, index - 1);
+		return word == null ? "" : word.toString();
+	}
+
+	/**
+	 * Returns the tokenizer of the separator, reusing the last one compiled when the separator is the same
+	 */
+	private static Tokenizer tokenizer(String separator) {
+		SeparatorTokenizer last = lastTokenizer;
+		if (last == null || !last.separator().equals(separator)) {
+			last = new SeparatorTokenizer(separator, Tokenizer.of(separator));
+			lastTokenizer = last;
 		}
+		return last.tokenizer();
 	}
+
 	// TODO
 	// empty
 	// left
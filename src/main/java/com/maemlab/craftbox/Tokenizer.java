@@ -0,0 +1,459 @@
+package com.maemlab.craftbox;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A separator compiled once and reused to split any number of texts, without building token arrays.
+ * <p>
+ * Tokens follow the rules of {@link String#split(String)}: a text without separators is a single token, trailing
+ * empty tokens are dropped, and a zero-width regex match at the start never yields a leading empty token.
+ * Tokens are returned as views over the scanned text, so no characters are copied until {@code toString()}.
+ * <p>
+ * Literal separators (single chars and plain strings) are searched with a simple scan; only separators that
+ * really are regular expressions go through {@link Matcher}. Instances are immutable and thread-safe; a
+ * {@link Cursor} is not.
+ *
+ * <pre>{@code
+ * private static final Tokenizer FIELDS = Tokenizer.of(';');
+ * ...
+ * CharSequence city = FIELDS.token(record, 3);
+ * }</pre>
+ */
+public final class Tokenizer {
+    private static final String REGEX_META = ".$|()[{^?*+\\";
+
+    private static final int CHAR = 0;
+    private static final int LITERAL = 1;
+    private static final int REGEX = 2;
+
+    private final int kind;
+    private final char separatorChar;
+    private final String separator;
+    private final Pattern pattern;
+
+    private Tokenizer(int kind, char separatorChar, String separator, Pattern pattern) {
+        this.kind = kind;
+        this.separatorChar = separatorChar;
+        this.separator = separator;
+        this.pattern = pattern;
+    }
+
+    /**
+     * Compiles a separator with the meaning it has in {@link String#split(String)}: a regular expression,
+     * searched literally when it contains no regex metacharacters (or is a single escaped one, like {@code "\\|"})
+     *
+     * @param separator the separator
+     * @return the tokenizer
+     */
+    public static Tokenizer of(String separator) {
+        if (separator.length() == 1 && REGEX_META.indexOf(separator.charAt(0)) < 0) {
+            return of(separator.charAt(0));
+        }
+        if (separator.length() == 2 && separator.charAt(0) == '\\' && !Character.isLetterOrDigit(separator.charAt(1))) {
+            return of(separator.charAt(1));
+        }
+        if (separator.isEmpty()) {
+            return regex(separator);
+        }
+        for (int i = 0; i < separator.length(); i++) {
+            if (REGEX_META.indexOf(separator.charAt(i)) >= 0) {
+                return regex(separator);
+            }
+        }
+        return literal(separator);
+    }
+
+    /**
+     * Compiles a single-char separator
+     *
+     * @param separator the separator
+     * @return the tokenizer
+     */
+    public static Tokenizer of(char separator) {
+        return new Tokenizer(CHAR, separator, String.valueOf(separator), null);
+    }
+
+    /**
+     * Compiles a separator searched as plain text, with no regex meaning
+     *
+     * @param separator the separator, not empty
+     * @return the tokenizer
+     */
+    public static Tokenizer literal(String separator) {
+        if (separator.isEmpty()) {
+            throw new IllegalArgumentException("Empty literal separator");
+        }
+        if (separator.length() == 1) {
+            return of(separator.charAt(0));
+        }
+        return new Tokenizer(LITERAL, '\0', separator, null);
+    }
+
+    /**
+     * Compiles a regular expression separator
+     *
+     * @param regex the regular expression
+     * @return the tokenizer
+     */
+    public static Tokenizer regex(String regex) {
+        return regex(Pattern.compile(regex));
+    }
+
+    /**
+     * Uses a compiled pattern as separator
+     *
+     * @param pattern the pattern
+     * @return the tokenizer
+     */
+    public static Tokenizer regex(Pattern pattern) {
+        return new Tokenizer(REGEX, '\0', pattern.pattern(), pattern);
+    }
+
+    /**
+     * @return the literal separator searched, or the pattern source for regular expressions
+     */
+    public String separator() {
+        return separator;
+    }
+
+    /**
+     * @return true if the separator is a regular expression
+     */
+    public boolean isRegex() {
+        return kind == REGEX;
+    }
+
+    /**
+     * Counts the tokens of a text, like {@code text.split(separator).length}
+     *
+     * @param text the text to scan
+     * @return the number of tokens
+     */
+    public int count(CharSequence text) {
+        if (kind == CHAR) {
+            return countChar(text);
+        }
+        Cursor c = cursor(text);
+        int n = 0;
+        while (c.next()) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns a token of a text, like {@code text.split(separator)[index]}
+     *
+     * @param text the text to scan
+     * @param index the position of the token, starting from 0
+     * @return a view over the token, or null if the text has no such token
+     */
+    public CharSequence token(CharSequence text, int index) {
+        if (index < 0) {
+            return null;
+        }
+        Cursor c = cursor(text);
+        for (int i = 0; i <= index; i++) {
+            if (!c.next()) {
+                return null;
+            }
+        }
+        return c.token();
+    }
+
+    /**
+     * Passes each token of a text to an action
+     *
+     * @param text the text to scan
+     * @param action receives a view over each token
+     */
+    public void forEach(CharSequence text, Consumer<? super CharSequence> action) {
+        Cursor c = cursor(text);
+        while (c.next()) {
+            action.accept(c.token());
+        }
+    }
+
+    /**
+     * Returns the tokens of a text as a lazy sequence of views
+     *
+     * @param text the text to scan
+     * @return the tokens, scanned again at each iteration
+     */
+    public Iterable<CharSequence> tokens(CharSequence text) {
+        return () -> new Iterator<>() {
+            private final Cursor c = cursor(text);
+            private boolean ready;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready) {
+                    ready = c.next();
+                }
+                return ready;
+            }
+
+            @Override
+            public CharSequence next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return c.token();
+            }
+        };
+    }
+
+    /**
+     * Opens a cursor over the tokens of a text. Stepping the cursor allocates nothing, so it is the way to read
+     * the bounds of many tokens without creating any object per token.
+     *
+     * @param text the text to scan
+     * @return the cursor, positioned before the first token
+     */
+    public Cursor cursor(CharSequence text) {
+        return new Cursor(text);
+    }
+
+    @Override
+    public String toString() {
+        return "Tokenizer[" + separator + "]";
+    }
+
+    /**
+     * Single pass count for char separators: trailing separators only produce empty tokens, so they are skipped
+     */
+    private int countChar(CharSequence text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == separatorChar) {
+            end--;
+        }
+        if (end == 0) {
+            // Either no separator at all (one token, the text itself) or only separators (no tokens)
+            return text.length() == 0 ? 1 : 0;
+        }
+        int n = 1;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == separatorChar) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Reusable position over the tokens of one text
+     */
+    public final class Cursor {
+        private final CharSequence text;
+        private final Matcher matcher;
+        // Next segment starts at pos; the separator search starts at searchFrom
+        private int pos;
+        private int searchFrom;
+        private boolean sawSeparator;
+        private boolean done;
+        // Start of the first non-empty segment found by a look-ahead, so empty segments before it need no check
+        private int nonEmptyAt = -1;
+        private int start;
+        private int end;
+        // Bounds of the separator found by the last call to find
+        private int sepStart;
+        private int sepEnd;
+
+        private Cursor(CharSequence text) {
+            this.text = text;
+            this.matcher = kind == REGEX ? pattern.matcher(text) : null;
+        }
+
+        /**
+         * Moves to the next token
+         *
+         * @return false if there are no more tokens
+         */
+        public boolean next() {
+            if (done) {
+                return false;
+            }
+            int length = text.length();
+            if (find(pos, searchFrom)) {
+                start = pos;
+                end = sepStart;
+                advance();
+                sawSeparator = true;
+                if (start == end && start > nonEmptyAt && !nonEmptyAhead()) {
+                    done = true;
+                    return false;
+                }
+                return true;
+            }
+            done = true;
+            start = pos;
+            end = length;
+            // The text itself is the only token when it has no separator, even if empty
+            return start < end || !sawSeparator;
+        }
+
+        /**
+         * @return the start index of the current token in the text
+         */
+        public int start() {
+            return start;
+        }
+
+        /**
+         * @return the end index (exclusive) of the current token in the text
+         */
+        public int end() {
+            return end;
+        }
+
+        /**
+         * @return the length of the current token
+         */
+        public int length() {
+            return end - start;
+        }
+
+        /**
+         * @return a view over the current token
+         */
+        public CharSequence token() {
+            return new View(text, start, end);
+        }
+
+        private void advance() {
+            pos = sepEnd;
+            // As Matcher.find does, never match the same empty separator twice
+            searchFrom = sepStart == sepEnd ? sepEnd + 1 : sepEnd;
+        }
+
+        /**
+         * Scans the segments after the current one for a non-empty token, without moving the cursor
+         */
+        private boolean nonEmptyAhead() {
+            int savedPos = pos, savedFrom = searchFrom;
+            boolean found = false;
+            while (find(pos, searchFrom)) {
+                if (sepStart > pos) {
+                    found = true;
+                    break;
+                }
+                advance();
+            }
+            if (found || pos < text.length()) {
+                nonEmptyAt = pos;
+                found = true;
+            }
+            pos = savedPos;
+            searchFrom = savedFrom;
+            return found;
+        }
+
+        /**
+         * Finds the next separator of the segment starting at segmentStart, setting sepStart and sepEnd
+         */
+        private boolean find(int segmentStart, int from) {
+            int length = text.length();
+            switch (kind) {
+                case CHAR -> {
+                    for (int i = from; i < length; i++) {
+                        if (text.charAt(i) == separatorChar) {
+                            sepStart = i;
+                            sepEnd = i + 1;
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                case LITERAL -> {
+                    int i = indexOf(text, separator, from);
+                    if (i < 0) {
+                        return false;
+                    }
+                    sepStart = i;
+                    sepEnd = i + separator.length();
+                    return true;
+                }
+                default -> {
+                    while (from <= length && matcher.find(from)) {
+                        // A zero-width match at the very start never splits, as in String.split
+                        if (matcher.end() == 0) {
+                            from = 1;
+                            continue;
+                        }
+                        sepStart = matcher.start();
+                        sepEnd = matcher.end();
+                        return true;
+                    }
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static int indexOf(CharSequence text, String s, int from) {
+        if (text instanceof String str) {
+            return str.indexOf(s, from);
+        }
+        char first = s.charAt(0);
+        int last = text.length() - s.length();
+        outer:
+        for (int i = from; i <= last; i++) {
+            if (text.charAt(i) != first) {
+                continue;
+            }
+            for (int k = 1; k < s.length(); k++) {
+                if (text.charAt(i + k) != s.charAt(k)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Zero-copy view over a range of a text
+     */
+    private static final class View implements CharSequence {
+        private final CharSequence text;
+        private final int start;
+        private final int end;
+
+        View(CharSequence text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + (end - start));
+            }
+            return new View(text, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return text.subSequence(start, end).toString();
+        }
+    }
+}
@@ -3,15 +3,14 @@ package com.maemlab.craftbox;
 public final class Validation {
     private Validation() {}
 
+    /**
+     * Checks whether a string is an int, without throwing on invalid input
+     *
+     * @param s the string to check, may be null
+     * @return true if the string is an int
+     * @see NumberParser
+     */
     public static boolean isNumeric(String s) {
-        if (s == null) {
-            return false;
-        }
-        try {
-            Integer.parseInt(s);
-        } catch (NumberFormatException nfe) {
-            return false;
-        }
-        return true;
+        return NumberParser.isInt(s);
     }
 }
@@ -0,0 +1,212 @@
+package com.maemlab.craftbox;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BulkKernels} on the incubating Vector API, compiled into SIMD instructions by the JIT.
+ * <p>
+ * Only loaded by {@link BulkSearch} when the {@code jdk.incubator.vector} module is enabled
+ * ({@code --add-modules jdk.incubator.vector}). Whole vectors are processed first and the tail
+ * is finished by {@link ScalarKernels}. Double lanes are compared with IEEE equality, like {@code ==}.
+ */
+final class VectorKernels implements BulkKernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // Beyond this many values a hash lookup per element beats one vector compare per value
+    private static final int MAX_VECTOR_VALUES = 8;
+
+    private final ScalarKernels scalar = new ScalarKernels();
+
+    @Override
+    public int indexOf(int[] a, int value) {
+        int bound = INTS.loopBound(a.length);
+        for (int i = 0; i < bound; i += INTS.length()) {
+            VectorMask<Integer> m = IntVector.fromArray(INTS, a, i).compare(VectorOperators.EQ, value);
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return ScalarKernels.indexOf(a, value, bound);
+    }
+
+    @Override
+    public int indexOf(long[] a, long value) {
+        int bound = LONGS.loopBound(a.length);
+        for (int i = 0; i < bound; i += LONGS.length()) {
+            VectorMask<Long> m = LongVector.fromArray(LONGS, a, i).compare(VectorOperators.EQ, value);
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return ScalarKernels.indexOf(a, value, bound);
+    }
+
+    @Override
+    public int indexOf(double[] a, double value) {
+        int bound = DOUBLES.loopBound(a.length);
+        for (int i = 0; i < bound; i += DOUBLES.length()) {
+            VectorMask<Double> m = DoubleVector.fromArray(DOUBLES, a, i).compare(VectorOperators.EQ, value);
+            if (m.anyTrue()) {
+                return i + m.firstTrue();
+            }
+        }
+        return ScalarKernels.indexOf(a, value, bound);
+    }
+
+    @Override
+    public int count(int[] a, int value) {
+        int bound = INTS.loopBound(a.length);
+        int n = 0;
+        for (int i = 0; i < bound; i += INTS.length()) {
+            n += IntVector.fromArray(INTS, a, i).compare(VectorOperators.EQ, value).trueCount();
+        }
+        for (int i = bound; i < a.length; i++) {
+            n += a[i] == value ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Override
+    public int count(long[] a, long value) {
+        int bound = LONGS.loopBound(a.length);
+        int n = 0;
+        for (int i = 0; i < bound; i += LONGS.length()) {
+            n += LongVector.fromArray(LONGS, a, i).compare(VectorOperators.EQ, value).trueCount();
+        }
+        for (int i = bound; i < a.length; i++) {
+            n += a[i] == value ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Override
+    public int count(double[] a, double value) {
+        int bound = DOUBLES.loopBound(a.length);
+        int n = 0;
+        for (int i = 0; i < bound; i += DOUBLES.length()) {
+            n += DoubleVector.fromArray(DOUBLES, a, i).compare(VectorOperators.EQ, value).trueCount();
+        }
+        for (int i = bound; i < a.length; i++) {
+            n += a[i] == value ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Override
+    public boolean containsAny(int[] a, int[] values) {
+        if (values.length == 0 || values.length > MAX_VECTOR_VALUES) {
+            return scalar.containsAny(a, values);
+        }
+        int bound = INTS.loopBound(a.length);
+        for (int i = 0; i < bound; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, a, i);
+            VectorMask<Integer> m = v.compare(VectorOperators.EQ, values[0]);
+            for (int k = 1; k < values.length; k++) {
+                m = m.or(v.compare(VectorOperators.EQ, values[k]));
+            }
+            if (m.anyTrue()) {
+                return true;
+            }
+        }
+        for (int i = bound; i < a.length; i++) {
+            if (Collections.contains(a[i], values)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsAny(long[] a, long[] values) {
+        if (values.length == 0 || values.length > MAX_VECTOR_VALUES) {
+            return scalar.containsAny(a, values);
+        }
+        int bound = LONGS.loopBound(a.length);
+        for (int i = 0; i < bound; i += LONGS.length()) {
+            LongVector v = LongVector.fromArray(LONGS, a, i);
+            VectorMask<Long> m = v.compare(VectorOperators.EQ, values[0]);
+            for (int k = 1; k < values.length; k++) {
+                m = m.or(v.compare(VectorOperators.EQ, values[k]));
+            }
+            if (m.anyTrue()) {
+                return true;
+            }
+        }
+        for (int i = bound; i < a.length; i++) {
+            for (long value : values) {
+                if (a[i] == value) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean containsAny(double[] a, double[] values) {
+        if (values.length == 0 || values.length > MAX_VECTOR_VALUES) {
+            return scalar.containsAny(a, values);
+        }
+        int bound = DOUBLES.loopBound(a.length);
+        for (int i = 0; i < bound; i += DOUBLES.length()) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, a, i);
+            VectorMask<Double> m = v.compare(VectorOperators.EQ, values[0]);
+            for (int k = 1; k < values.length; k++) {
+                m = m.or(v.compare(VectorOperators.EQ, values[k]));
+            }
+            if (m.anyTrue()) {
+                return true;
+            }
+        }
+        for (int i = bound; i < a.length; i++) {
+            if (Collections.contains(a[i], values)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Lane counts are powers of two up to 64, so the bits of one vector never straddle two mask words
+
+    @Override
+    public int mask(int[] a, int value, long[] mask) {
+        int bound = INTS.loopBound(a.length);
+        int n = 0;
+        for (int i = 0; i < bound; i += INTS.length()) {
+            VectorMask<Integer> m = IntVector.fromArray(INTS, a, i).compare(VectorOperators.EQ, value);
+            mask[i >>> 6] |= m.toLong() << i;
+            n += m.trueCount();
+        }
+        return n + ScalarKernels.mask(a, value, mask, bound);
+    }
+
+    @Override
+    public int mask(long[] a, long value, long[] mask) {
+        int bound = LONGS.loopBound(a.length);
+        int n = 0;
+        for (int i = 0; i < bound; i += LONGS.length()) {
+            VectorMask<Long> m = LongVector.fromArray(LONGS, a, i).compare(VectorOperators.EQ, value);
+            mask[i >>> 6] |= m.toLong() << i;
+            n += m.trueCount();
+        }
+        return n + ScalarKernels.mask(a, value, mask, bound);
+    }
+
+    @Override
+    public int mask(double[] a, double value, long[] mask) {
+        int bound = DOUBLES.loopBound(a.length);
+        int n = 0;
+        for (int i = 0; i < bound; i += DOUBLES.length()) {
+            VectorMask<Double> m = DoubleVector.fromArray(DOUBLES, a, i).compare(VectorOperators.EQ, value);
+            mask[i >>> 6] |= m.toLong() << i;
+            n += m.trueCount();
+        }
+        return n + ScalarKernels.mask(a, value, mask, bound);
+    }
+}
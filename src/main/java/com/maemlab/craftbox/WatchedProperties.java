@@ -0,0 +1,298 @@
+package com.maemlab.craftbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Properties file kept in memory and reloaded in the background when it changes on disk.
+ * <p>
+ * Readers get an immutable {@link Snapshot} through a single volatile read: they never touch the disk and never
+ * take a lock, unlike repeated calls to {@link FileOperations#readPropertiesFile(String)}. The file is watched
+ * with a {@link WatchService} on its parent directory; every time it is modified a new snapshot is published and
+ * the registered listeners are notified. If a reload fails (e.g. the file is being rewritten or was removed),
+ * the previous snapshot stays in place.
+ * <p>
+ * Some replacements raise no event on the parent directory, such as a symbolic link in the path being swapped
+ * (e.g. the {@code ..data} link of a Kubernetes ConfigMap) or an edit made from another NFS client. A periodic
+ * reload, set with {@link #watch(Path, Duration)}, picks those up.
+ *
+ * <pre>{@code
+ * try (var settings = WatchedProperties.watch(Path.of("features.properties"))) {
+ *     settings.addListener(snapshot -> rebuild(snapshot));
+ *     boolean enabled = settings.snapshot().getBoolean("feature.x", false);
+ * }
+ * }</pre>
+ */
+public final class WatchedProperties implements Closeable {
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path file;
+    private final long reloadNanos;
+    private final WatchService watchService;
+    private final Thread watcher;
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Immutable view of the properties at a point in time
+     */
+    public static final class Snapshot {
+        private final Map<String, String> values;
+
+        private Snapshot(Map<String, String> values) {
+            this.values = values;
+        }
+
+        /**
+         * @return all the properties as an unmodifiable map
+         */
+        public Map<String, String> asMap() {
+            return values;
+        }
+
+        public boolean contains(String key) {
+            return values.containsKey(key);
+        }
+
+        /**
+         * @return the value of the key, or null if missing
+         */
+        public String getString(String key) {
+            return values.get(key);
+        }
+
+        /**
+         * @return the value of the key, or the default if missing
+         */
+        public String getString(String key, String defaultValue) {
+            return values.getOrDefault(key, defaultValue);
+        }
+
+        /**
+         * @return the value of the key, or the default if missing
+         * @throws NumberFormatException if the value is not an int
+         */
+        public int getInt(String key, int defaultValue) {
+            String v = values.get(key);
+            return v == null ? defaultValue : Integer.parseInt(v.trim());
+        }
+
+        /**
+         * @return the value of the key, or the default if missing
+         * @throws NumberFormatException if the value is not a long
+         */
+        public long getLong(String key, long defaultValue) {
+            String v = values.get(key);
+            return v == null ? defaultValue : Long.parseLong(v.trim());
+        }
+
+        /**
+         * @return the value of the key, or the default if missing
+         * @throws NumberFormatException if the value is not a double
+         */
+        public double getDouble(String key, double defaultValue) {
+            String v = values.get(key);
+            return v == null ? defaultValue : Double.parseDouble(v.trim());
+        }
+
+        /**
+         * @return true if the value of the key is "true" (ignoring case), the default if missing
+         */
+        public boolean getBoolean(String key, boolean defaultValue) {
+            String v = values.get(key);
+            return v == null ? defaultValue : Boolean.parseBoolean(v.trim());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Snapshot s && values.equals(s.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return values.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return values.toString();
+        }
+    }
+
+    private WatchedProperties(Path file, Duration reloadInterval, Snapshot snapshot, WatchService watchService) {
+        this.file = file;
+        this.reloadNanos = reloadInterval.isZero() || reloadInterval.isNegative() ? 0 : reloadInterval.toNanos();
+        this.snapshot = snapshot;
+        this.watchService = watchService;
+        this.watcher = new Thread(this::watch, "craftbox-properties-" + file.getFileName());
+        this.watcher.setDaemon(true);
+    }
+
+    /**
+     * Loads a properties file and starts watching it for changes
+     *
+     * @param file the properties file
+     * @return the watched properties, to be closed when no longer needed
+     * @throws IOException if the file cannot be read or watched
+     */
+    public static WatchedProperties watch(Path file) throws IOException {
+        return watch(file, Duration.ZERO);
+    }
+
+    /**
+     * Loads a properties file and starts watching it for changes, also reloading it periodically
+     *
+     * @param file the properties file
+     * @param reloadInterval the time between two periodic reloads, zero to reload only on change events
+     * @return the watched properties, to be closed when no longer needed
+     * @throws IOException if the file cannot be read or watched
+     */
+    public static WatchedProperties watch(Path file, Duration reloadInterval) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Snapshot initial = load(absolute);
+        WatchService ws = FileSystems.getDefault().newWatchService();
+        try {
+            absolute.getParent().register(ws, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            ws.close();
+            throw e;
+        }
+        var wp = new WatchedProperties(absolute, reloadInterval, initial, ws);
+        wp.watcher.start();
+        return wp;
+    }
+
+    /**
+     * @return the current snapshot
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Registers a listener called from the watcher thread with each new snapshot.
+     * An exception thrown by a listener does not keep the other listeners from being notified.
+     *
+     * @param listener the listener
+     */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Snapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reloads the file immediately, notifying the listeners if the content changed
+     *
+     * @throws IOException if the file cannot be read
+     * @throws RuntimeException the first exception thrown by a listener, once all of them have been notified
+     */
+    public void reload() throws IOException {
+        publish(load(file));
+    }
+
+    /**
+     * Stops watching the file. The last snapshot remains readable.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    private synchronized void publish(Snapshot next) {
+        if (next.equals(snapshot)) {
+            return;
+        }
+        snapshot = next;
+        RuntimeException failure = null;
+        for (Consumer<Snapshot> listener : listeners) {
+            try {
+                listener.accept(next);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void watch() {
+        Path name = file.getFileName();
+        long nextReload = System.nanoTime() + reloadNanos;
+        try {
+            while (true) {
+                WatchKey key;
+                if (reloadNanos == 0) {
+                    key = watchService.take();
+                } else {
+                    long wait = nextReload - System.nanoTime();
+                    key = wait > 0 ? watchService.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+                // A periodic reload is due when no event came before the deadline
+                boolean changed = key == null;
+                // Editors and in-place writers emit bursts of events: wait for the file to settle before reloading
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // An overflow may have hidden an event for our file
+                        changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+                    }
+                    key.reset();
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (changed) {
+                    Snapshot next;
+                    try {
+                        next = load(file);
+                    } catch (IOException | RuntimeException e) {
+                        // Keep the previous snapshot until the file changes again or the next periodic reload
+                        next = null;
+                    }
+                    if (next != null) {
+                        try {
+                            publish(next);
+                        } catch (RuntimeException e) {
+                            // Thrown by a listener once all were notified; the new snapshot is already published
+                        }
+                    }
+                    nextReload = System.nanoTime() + reloadNanos;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private static Snapshot load(Path file) throws IOException {
+        Properties p = FileOperations.readPropertiesFile(file.toString());
+        Map<String, String> values = new HashMap<>();
+        for (String key : p.stringPropertyNames()) {
+            values.put(key, p.getProperty(key));
+        }
+        return new Snapshot(Map.copyOf(values));
+    }
+}
@@ -0,0 +1,111 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncFileOperationsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeReadAndCopyRoundTrip() throws Exception {
+        byte[] data = new byte[300_000];
+        new Random(42).nextBytes(data);
+        Path source = dir.resolve("source.bin");
+        Path target = dir.resolve("target.bin");
+        try (var ops = new AsyncFileOperations(4, 4096)) {
+            ops.write(source, data).get(10, TimeUnit.SECONDS);
+            assertArrayEquals(data, ops.readAllBytes(source).get(10, TimeUnit.SECONDS));
+            assertEquals(data.length, ops.copy(source, target, false).get(10, TimeUnit.SECONDS));
+            assertArrayEquals(data, Files.readAllBytes(target));
+
+            ops.writeString(target, "shorter").get(10, TimeUnit.SECONDS);
+            assertEquals("shorter", ops.readString(target).get(10, TimeUnit.SECONDS));
+            ops.delete(target).get(10, TimeUnit.SECONDS);
+            assertFalse(Files.exists(target));
+        }
+    }
+
+    @Test
+    void queuedOperationsAllCompleteWithFewPermits() throws Exception {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (var ops = new AsyncFileOperations(4, 1024)) {
+            for (int i = 0; i < 200; i++) {
+                futures.add(ops.writeString(dir.resolve("f" + i), "content " + i));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            assertEquals(0, ops.inFlight());
+        }
+        assertEquals("content 199", Files.readString(dir.resolve("f199")));
+    }
+
+    @Test
+    void queuedOperationsFailingAtOnceDoNotExhaustTheStack() throws Exception {
+        // A slow read holds the only permit, so the failing reads queue up behind it
+        Path large = Files.write(dir.resolve("large.bin"), new byte[256 * 1024]);
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>();
+        try (var ops = new AsyncFileOperations(1, 16)) {
+            CompletableFuture<byte[]> slow = ops.readAllBytes(large);
+            for (int i = 0; i < 50_000; i++) {
+                futures.add(ops.readAllBytes(dir.resolve("missing-" + i)));
+            }
+            for (CompletableFuture<byte[]> f : futures) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> f.get(30, TimeUnit.SECONDS));
+                assertInstanceOf(NoSuchFileException.class, e.getCause());
+            }
+            assertEquals(256 * 1024, slow.get(30, TimeUnit.SECONDS).length);
+            assertEquals(0, ops.inFlight());
+        }
+    }
+
+    @Test
+    void copyDoesNotReplaceWithoutPermission() throws Exception {
+        Path source = Files.writeString(dir.resolve("a"), "a");
+        Path target = Files.writeString(dir.resolve("b"), "b");
+        try (var ops = new AsyncFileOperations()) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> ops.copy(source, target, false).get(10, TimeUnit.SECONDS));
+            assertInstanceOf(FileAlreadyExistsException.class, e.getCause());
+            assertEquals("b", Files.readString(target));
+        }
+    }
+
+    @Test
+    void copyOntoItselfLeavesTheFileIntact() throws Exception {
+        Path file = Files.writeString(dir.resolve("same.txt"), "hello, world!");
+        try (var ops = new AsyncFileOperations()) {
+            assertEquals(0L, ops.copy(file, file, true).get(10, TimeUnit.SECONDS));
+            assertEquals(0L, ops.copy(file, dir.resolve(".").resolve("same.txt"), false).get(10, TimeUnit.SECONDS));
+        }
+        assertEquals("hello, world!", Files.readString(file));
+    }
+
+    @Test
+    void operationsFailAfterClose() {
+        var ops = new AsyncFileOperations();
+        ops.close();
+        CompletableFuture<byte[]> f = ops.readAllBytes(dir.resolve("x"));
+        assertTrue(f.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, f::get);
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+}
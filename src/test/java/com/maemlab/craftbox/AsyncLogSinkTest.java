@@ -0,0 +1,193 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogSinkTest {
+    @Test
+    void messagesOfEachThreadKeepTheirOrder() throws Exception {
+        var out = new ByteArrayOutputStream();
+        var sink = new AsyncLogSink(Channels.newChannel(out), StandardCharsets.UTF_8, 16,
+                AsyncLogSink.OverflowPolicy.BLOCK, 1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    sink.println(id + ":" + i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+        sink.close();
+
+        int[] next = new int[4];
+        String[] lines = out.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+        assertEquals(4000, lines.length);
+        for (String line : lines) {
+            int id = line.charAt(0) - '0';
+            assertEquals(next[id]++, Integer.parseInt(line.substring(2)));
+        }
+        assertEquals(0, sink.droppedCount());
+    }
+
+    @Test
+    void dropPolicyCountsAndReportsDroppedMessages() throws Exception {
+        var release = new CountDownLatch(1);
+        var out = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        WritableByteChannel slow = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return channel.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+        var sink = new AsyncLogSink(slow, StandardCharsets.UTF_8, 4, AsyncLogSink.OverflowPolicy.DROP, 1);
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (sink.println("m" + i)) {
+                accepted++;
+            }
+        }
+        release.countDown();
+        sink.close();
+
+        assertTrue(accepted < 100);
+        assertEquals(100 - accepted, sink.droppedCount());
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("log messages dropped]"), text);
+        assertEquals(accepted, text.split("m\\d+").length - 1);
+    }
+
+    @Test
+    void messagesAfterCloseAreRejected() {
+        var out = new ByteArrayOutputStream();
+        var sink = new AsyncLogSink(Channels.newChannel(out), StandardCharsets.UTF_8, 8,
+                AsyncLogSink.OverflowPolicy.BLOCK, 1);
+        assertTrue(sink.print("a"));
+        sink.close();
+        assertTrue(sink.isClosed());
+        assertFalse(sink.print("b"));
+        assertEquals(1, sink.droppedCount());
+        assertEquals("a", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void everyAcceptedMessageIsWrittenWhenClosingConcurrently() throws Exception {
+        for (int run = 0; run < 50; run++) {
+            var out = new ByteArrayOutputStream();
+            var sink = new AsyncLogSink(Channels.newChannel(out), StandardCharsets.UTF_8, 1024,
+                    AsyncLogSink.OverflowPolicy.BLOCK, 1);
+            var accepted = new AtomicInteger();
+            var start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 2000; i++) {
+                        if (sink.print("x")) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            start.countDown();
+            Thread.sleep(1);
+            sink.close();
+            for (Thread t : threads) {
+                t.join();
+            }
+            assertEquals(accepted.get(), out.toString(StandardCharsets.UTF_8).chars().filter(c -> c == 'x').count());
+            assertEquals(8000 - accepted.get(), sink.droppedCount());
+        }
+    }
+
+    @Test
+    void failingChannelDoesNotBlockProducers() {
+        WritableByteChannel failing = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                throw new IllegalStateException("broken");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        var sink = new AsyncLogSink(failing, StandardCharsets.UTF_8, 4, AsyncLogSink.OverflowPolicy.BLOCK, 1);
+        for (int i = 0; i < 100; i++) {
+            sink.println("m" + i);
+        }
+        sink.close();
+        assertTrue(sink.lastError().getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    void lineSeparatorUsesTheSinkCharset() {
+        var out = new ByteArrayOutputStream();
+        var sink = new AsyncLogSink(Channels.newChannel(out), StandardCharsets.UTF_16BE, 8,
+                AsyncLogSink.OverflowPolicy.BLOCK, 1);
+        sink.println("a");
+        sink.close();
+        assertEquals("a" + System.lineSeparator(), out.toString(StandardCharsets.UTF_16BE));
+    }
+
+    @Test
+    void stdoutFollowsSystemOutRedirection() {
+        PrintStream original = System.out;
+        var captured = new ByteArrayOutputStream();
+        var sink = AsyncLogSink.stdout(64, AsyncLogSink.OverflowPolicy.BLOCK);
+        try {
+            System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+            sink.println("redirected");
+            sink.flush();
+        } finally {
+            sink.close();
+            System.setOut(original);
+        }
+        assertEquals("redirected" + System.lineSeparator(), captured.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,92 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AtomicFileWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void closeDuringBatchWindowCommitsAndReturns() throws Exception {
+        Path file = dir.resolve("state.json");
+        var writer = new AtomicFileWriter(200, true);
+        CompletableFuture<Void> future = writer.write(file, "{\"a\":1}");
+        assertTimeoutPreemptively(Duration.ofSeconds(5), writer::close);
+        assertTrue(future.isDone());
+        future.get();
+        assertEquals("{\"a\":1}", Files.readString(file));
+    }
+
+    @Test
+    void closeWhileIdleReturns() {
+        var writer = new AtomicFileWriter();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), writer::close);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), writer::close);
+    }
+
+    @Test
+    void repeatedWritesAreCoalescedIntoTheLast() throws Exception {
+        Path file = dir.resolve("sub/dir/state.json");
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try (var writer = new AtomicFileWriter(50, false)) {
+            for (int i = 0; i < 100; i++) {
+                futures.add(writer.write(file, "v" + i));
+            }
+        }
+        for (CompletableFuture<Void> f : futures) {
+            f.get(0, TimeUnit.SECONDS);
+        }
+        assertEquals("v99", Files.readString(file));
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(1, files.count(), "temporary files left behind");
+        }
+    }
+
+    @Test
+    void concurrentWritersAreAllCommittedByClose() throws Exception {
+        var writer = new AtomicFileWriter(1, false);
+        List<Thread> threads = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = java.util.Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < 4; t++) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200; i++) {
+                    futures.add(writer.write(dir.resolve("f" + id + "-" + i), new byte[] {(byte) i}));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(10), writer::close);
+        for (CompletableFuture<Void> f : futures) {
+            f.get(0, TimeUnit.SECONDS);
+        }
+        assertEquals(800, futures.size());
+        assertArrayEquals(new byte[] {(byte) 199}, Files.readAllBytes(dir.resolve("f3-199")));
+    }
+
+    @Test
+    void writeAfterCloseIsRejected() {
+        var writer = new AtomicFileWriter();
+        writer.close();
+        assertThrows(RejectedExecutionException.class, () -> writer.write(dir.resolve("x"), "x"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the kernels against plain loops. The build runs this class twice: with the scalar fallback in the
+ * regular test task, and with the Vector API in vectorTest, which sets craftbox.test.vectorized.
+ */
+class BulkSearchTest {
+    // Beyond a few vectors of every species, so that each length leaves a different tail
+    private static final int MAX_LENGTH = 70;
+    private static final double[] SPECIAL = {0.0, -0.0, Double.NaN, 1.5, Double.POSITIVE_INFINITY, Double.MIN_VALUE};
+
+    @Test
+    void runsOnTheExpectedKernels() {
+        assertEquals(Boolean.getBoolean("craftbox.test.vectorized"), BulkSearch.isVectorized());
+    }
+
+    @Test
+    void intsMatchAPlainLoop() {
+        var random = new Random(1);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            int[] a = new int[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = random.nextInt(8) - 4;
+            }
+            for (int value = -5; value <= 5; value++) {
+                int first = -1;
+                int count = 0;
+                var mask = new BitSet();
+                for (int i = 0; i < length; i++) {
+                    if (a[i] == value) {
+                        first = first < 0 ? i : first;
+                        count++;
+                        mask.set(i);
+                    }
+                }
+                assertEquals(first, BulkSearch.indexOf(a, value), "length " + length);
+                assertEquals(count, BulkSearch.countMatches(a, value), "length " + length);
+                assertEquals(mask, BulkSearch.matchMask(a, value), "length " + length);
+                long[] words = new long[(length + 63) / 64 + 1];
+                Arrays.fill(words, -1L);
+                assertEquals(count, BulkSearch.matchMask(a, value, words), "length " + length);
+                assertEquals(mask, BitSet.valueOf(Arrays.copyOf(words, (length + 63) / 64)));
+                assertEquals(count > 0, BulkSearch.containsAny(a, 100, value, 200), "length " + length);
+            }
+        }
+    }
+
+    @Test
+    void longsMatchAPlainLoop() {
+        var random = new Random(2);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            long[] a = new long[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = (random.nextInt(8) - 4) * (1L << 40);
+            }
+            for (int k = -5; k <= 5; k++) {
+                long value = k * (1L << 40);
+                int first = -1;
+                int count = 0;
+                var mask = new BitSet();
+                for (int i = 0; i < length; i++) {
+                    if (a[i] == value) {
+                        first = first < 0 ? i : first;
+                        count++;
+                        mask.set(i);
+                    }
+                }
+                assertEquals(first, BulkSearch.indexOf(a, value), "length " + length);
+                assertEquals(count, BulkSearch.countMatches(a, value), "length " + length);
+                assertEquals(mask, BulkSearch.matchMask(a, value), "length " + length);
+                assertEquals(count > 0, BulkSearch.containsAny(a, 7L, value), "length " + length);
+            }
+        }
+    }
+
+    @Test
+    void doublesCompareWithEquality() {
+        var random = new Random(3);
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            double[] a = new double[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = SPECIAL[random.nextInt(SPECIAL.length)];
+            }
+            for (double value : SPECIAL) {
+                int first = -1;
+                int count = 0;
+                var mask = new BitSet();
+                for (int i = 0; i < length; i++) {
+                    if (a[i] == value) {
+                        first = first < 0 ? i : first;
+                        count++;
+                        mask.set(i);
+                    }
+                }
+                String where = "length " + length + ", value " + value;
+                assertEquals(first, BulkSearch.indexOf(a, value), where);
+                assertEquals(count, BulkSearch.countMatches(a, value), where);
+                assertEquals(mask, BulkSearch.matchMask(a, value), where);
+                assertEquals(count > 0, BulkSearch.containsAny(a, value), where);
+                assertEquals(count > 0, BulkSearch.containsAny(a, 42.0, value, 43.0), where);
+            }
+        }
+    }
+
+    @Test
+    void nanNeverMatchesAndSignedZerosMatchEachOther() {
+        double[] a = {Double.NaN, -0.0, Double.NaN};
+        assertEquals(-1, BulkSearch.indexOf(a, Double.NaN));
+        assertEquals(0, BulkSearch.countMatches(a, Double.NaN));
+        assertEquals(1, BulkSearch.indexOf(a, 0.0));
+        assertEquals(1, BulkSearch.countMatches(a, 0.0));
+    }
+}
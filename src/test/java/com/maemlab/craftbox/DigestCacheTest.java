@@ -0,0 +1,91 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DigestCacheTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void unchangedFilesAreServedFromTheCache() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.txt"), "hello");
+        var cache = new DigestCache(10);
+        String expected = DigestUtils.calculateDigest(file, "SHA-256");
+        assertEquals(expected, cache.calculateDigest(file, "SHA-256"));
+        assertEquals(expected, cache.calculateDigest(file, "SHA-256"));
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    void rewriteWithinTheSameMillisecondIsNoticed() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.txt"), "aaaa");
+        Instant t = Instant.parse("2024-05-01T10:00:00.000000100Z");
+        Files.setLastModifiedTime(file, FileTime.from(t));
+        assumeTrue(Files.getLastModifiedTime(file).toInstant().equals(t), "no sub-millisecond timestamps");
+
+        var cache = new DigestCache(10);
+        cache.calculateDigest(file, "SHA-256");
+        Files.writeString(file, "bbbb");
+        Files.setLastModifiedTime(file, FileTime.from(t.plusNanos(500)));
+        assertEquals(DigestUtils.calculateDigest(file, "SHA-256"), cache.calculateDigest(file, "SHA-256"));
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    void savedEntriesSurviveALoad() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.txt"), "hello");
+        Path cacheFile = dir.resolve("cache/digests.bin");
+        var cache = new DigestCache(10);
+        String digest = cache.calculateDigest(file, "MD5");
+        cache.save(cacheFile);
+
+        DigestCache loaded = DigestCache.load(cacheFile, 10);
+        assertEquals(1, loaded.size());
+        assertEquals(digest, loaded.calculateDigest(file, "MD5"));
+        assertEquals(1, loaded.hits());
+        try (var files = Files.list(cacheFile.getParent())) {
+            assertEquals(1, files.count(), "temporary files left behind");
+        }
+    }
+
+    @Test
+    void otherFormatVersionsLoadEmpty() throws Exception {
+        Path cacheFile = dir.resolve("other.bin");
+        try (var out = new DataOutputStream(Files.newOutputStream(cacheFile))) {
+            out.writeInt(0x44474348);
+            out.writeInt(99);
+            out.writeInt(1);
+            out.writeUTF("/x");
+        }
+        assertEquals(0, DigestCache.load(cacheFile, 10).size());
+        assertEquals(0, DigestCache.load(dir.resolve("missing.bin"), 10).size());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() throws Exception {
+        var cache = new DigestCache(2);
+        Path a = Files.writeString(dir.resolve("a"), "a");
+        Path b = Files.writeString(dir.resolve("b"), "b");
+        Path c = Files.writeString(dir.resolve("c"), "c");
+        cache.calculateDigest(a, "SHA-256");
+        cache.calculateDigest(b, "SHA-256");
+        cache.calculateDigest(a, "SHA-256");
+        cache.calculateDigest(c, "SHA-256");
+        assertEquals(2, cache.size());
+        cache.calculateDigest(a, "SHA-256");
+        assertEquals(2, cache.hits());
+        cache.calculateDigest(b, "SHA-256");
+        assertEquals(4, cache.misses());
+    }
+}
@@ -0,0 +1,120 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectoryIndexTest {
+    @TempDir
+    Path root;
+
+    @Test
+    void followsCreateRenameAndDelete() throws Exception {
+        Files.createDirectories(root.resolve("x/y"));
+        Files.writeString(root.resolve("a.txt"), "1");
+        Files.writeString(root.resolve("x/b.txt"), "1");
+        Files.writeString(root.resolve("x/y/c.log"), "1");
+        try (var index = DirectoryIndex.open(root, Duration.ZERO)) {
+            assertMatchesDisk(index);
+
+            Files.writeString(root.resolve("x/y/d.txt"), "1");
+            assertMatchesDisk(index);
+            Files.move(root.resolve("x/b.txt"), root.resolve("x/y/bb.txt"));
+            assertMatchesDisk(index);
+            Files.delete(root.resolve("a.txt"));
+            assertMatchesDisk(index);
+
+            Files.createDirectories(root.resolve("n/m"));
+            for (int i = 0; i < 20; i++) {
+                Files.writeString(root.resolve("n/m/f" + i + ".txt"), "1");
+            }
+            assertMatchesDisk(index);
+
+            FileOperations.deleteDir(root.resolve("x"));
+            assertMatchesDisk(index);
+            Files.createDirectories(root.resolve("x"));
+            Files.writeString(root.resolve("x/z.txt"), "1");
+            assertMatchesDisk(index);
+        }
+    }
+
+    @Test
+    void answersExtensionAndPrefixQueries() throws Exception {
+        Files.createDirectories(root.resolve("2024/05"));
+        Files.writeString(root.resolve("2024/05/report-1.tar.gz"), "1");
+        Files.writeString(root.resolve("2024/05/report-2.txt"), "1");
+        Files.writeString(root.resolve("2024/05/summary.txt"), "1");
+        Files.writeString(root.resolve("readme"), "1");
+        try (var index = DirectoryIndex.open(root)) {
+            assertEquals(4, index.size());
+            assertEquals(FileOperations.listFilesByExtension(root, ".txt"), index.listFilesByExtension(".txt"));
+            assertEquals(FileOperations.listFilesByExtension(root, ".tar.gz"), index.listFilesByExtension(".tar.gz"));
+            assertEquals(FileOperations.listFilesByExtension(root, "txt"), index.listFilesByExtension("txt"));
+            assertEquals(List.of(), index.listFilesByExtension(".json"));
+
+            String prefix = "2024" + File.separator + "05" + File.separator + "report-";
+            assertEquals(List.of(root.resolve("2024/05/report-1.tar.gz").toFile(),
+                    root.resolve("2024/05/report-2.txt").toFile()), index.listFilesByPrefix(prefix));
+            assertEquals(3, index.listFiles(root.resolve("2024")).size());
+            assertTrue(index.contains(root.resolve("readme")));
+        }
+    }
+
+    @Test
+    void movedDirectoryIsStillWatched() throws Exception {
+        Files.createDirectories(root.resolve("a/m"));
+        Files.createDirectories(root.resolve("b"));
+        Files.writeString(root.resolve("a/m/f.txt"), "1");
+        try (var index = DirectoryIndex.open(root, Duration.ZERO)) {
+            Files.move(root.resolve("a/m"), root.resolve("b/m"));
+            await(() -> index.contains(root.resolve("b/m/f.txt")) && !index.contains(root.resolve("a/m/f.txt")));
+
+            Files.writeString(root.resolve("b/m/new.txt"), "1");
+            await(() -> index.contains(root.resolve("b/m/new.txt")));
+            assertMatchesDisk(index);
+        }
+    }
+
+    @Test
+    void rescanCorrectsTheIndex() throws Exception {
+        Files.writeString(root.resolve("a.txt"), "1");
+        try (var index = DirectoryIndex.open(root, Duration.ZERO)) {
+            index.close();
+            Files.writeString(root.resolve("b.txt"), "1");
+            Files.delete(root.resolve("a.txt"));
+            index.rescan();
+            assertEquals(List.of(root.resolve("b.txt").toFile()), index.listFiles());
+        }
+    }
+
+    private void assertMatchesDisk(DirectoryIndex index) throws Exception {
+        await(() -> {
+            try {
+                return FileOperations.listFiles(root).equals(index.listFiles());
+            } catch (IOException e) {
+                return false;
+            }
+        });
+        assertEquals(FileOperations.listFilesByExtension(root, ".txt"), index.listFilesByExtension(".txt"));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Index not updated within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class FileCopierTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void skipLeavesExistingTarget() throws IOException {
+        Path source = Files.writeString(dir.resolve("a"), "new");
+        Path target = Files.writeString(dir.resolve("b"), "old");
+        assertEquals(-1, FileCopier.create().copyFile(source, target));
+        assertEquals("old", Files.readString(target));
+        assertEquals(3, FileCopier.create().copyFile(source, dir.resolve("c")));
+        assertEquals("new", Files.readString(dir.resolve("c")));
+    }
+
+    @Test
+    void overwriteReplacesTargetWithoutLeavingTemporaryFiles() throws IOException {
+        Path source = Files.writeString(dir.resolve("a"), "new content");
+        Path target = Files.writeString(dir.resolve("b"), "old");
+        var copier = FileCopier.create().withExistingPolicy(FileCopier.ExistingPolicy.OVERWRITE);
+        assertEquals(11, copier.copyFile(source, target));
+        assertEquals("new content", Files.readString(target));
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void overwriteKeepsTheSourcePermissions() throws IOException {
+        assumeTrue(dir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path source = Files.writeString(dir.resolve("run.sh"), "#!/bin/sh");
+        Files.setPosixFilePermissions(source, PosixFilePermissions.fromString("rwxr-x---"));
+        Path target = Files.writeString(dir.resolve("deployed.sh"), "old");
+        var copier = FileCopier.create().withExistingPolicy(FileCopier.ExistingPolicy.OVERWRITE);
+        copier.copyFile(source, target);
+        assertEquals(PosixFilePermissions.fromString("rwxr-x---"), Files.getPosixFilePermissions(target));
+    }
+
+    @Test
+    void copyOntoItselfLeavesTheFileIntact() throws Exception {
+        Path file = Files.writeString(dir.resolve("same.txt"), "hello, world!");
+        for (FileCopier.ExistingPolicy policy : FileCopier.ExistingPolicy.values()) {
+            var copier = FileCopier.create().withExistingPolicy(policy).withVerification("SHA-256");
+            assertEquals(-1, copier.copyFile(file, file));
+            assertEquals(-1, copier.copyFile(file, dir.resolve(".").resolve("same.txt")));
+            assertEquals("hello, world!", Files.readString(file));
+        }
+    }
+
+    @Test
+    void skipIfIdenticalComparesContent() throws Exception {
+        Path source = Files.writeString(dir.resolve("a"), "abc");
+        Path target = Files.writeString(dir.resolve("b"), "abc");
+        var copier = FileCopier.create().withExistingPolicy(FileCopier.ExistingPolicy.SKIP_IF_IDENTICAL);
+        assertEquals(-1, copier.copyFile(source, target));
+        Files.writeString(target, "abd");
+        assertEquals(3, copier.copyFile(source, target));
+        assertEquals("abc", Files.readString(target));
+    }
+
+    @Test
+    void copyTreeCopiesEveryFile() throws Exception {
+        Path source = dir.resolve("src");
+        Files.createDirectories(source.resolve("x/y"));
+        Files.writeString(source.resolve("a.txt"), "a");
+        Files.writeString(source.resolve("x/b.txt"), "bb");
+        Files.writeString(source.resolve("x/y/c.txt"), "ccc");
+        Path target = dir.resolve("dst");
+        Files.createDirectories(target.resolve("x"));
+        Files.writeString(target.resolve("x/b.txt"), "old");
+
+        FileCopier.CopyResult result = FileCopier.create().withParallelism(2).copyTree(source, target);
+        assertTrue(result.isSuccess(), result.failures().toString());
+        assertEquals(2, result.copied());
+        assertEquals(1, result.skipped());
+        assertEquals(4, result.bytes());
+        assertEquals("ccc", Files.readString(target.resolve("x/y/c.txt")));
+        assertEquals("old", Files.readString(target.resolve("x/b.txt")));
+    }
+
+    @Test
+    void copyTreeIntoItsOwnSubdirectoryLeavesTheTargetOut() throws Exception {
+        Path source = dir.resolve("src");
+        Files.createDirectories(source.resolve("x"));
+        Files.writeString(source.resolve("a.txt"), "a");
+        Files.writeString(source.resolve("x/b.txt"), "bb");
+        Path target = source.resolve("backup");
+
+        FileCopier.CopyResult result = FileCopier.create().copyTree(source, target);
+        assertTrue(result.isSuccess(), result.failures().toString());
+        assertEquals(2, result.copied());
+        assertEquals("bb", Files.readString(target.resolve("x/b.txt")));
+        assertFalse(Files.exists(target.resolve("backup")));
+
+        // Run again through a non-normalized path once the target exists
+        result = FileCopier.create().copyTree(source.resolve("x/.."), target);
+        assertTrue(result.isSuccess(), result.failures().toString());
+        assertEquals(2, result.skipped());
+        assertFalse(Files.exists(target.resolve("backup")));
+    }
+
+    @Test
+    void fileOperationsCopyFileSkipsExistingTargetEvenWithoutSource() throws IOException {
+        Path target = Files.writeString(dir.resolve("b"), "old");
+        FileOperations.copyFile(dir.resolve("missing").toString(), target.toString());
+        assertEquals("old", Files.readString(target));
+        assertFalse(Files.exists(dir.resolve("missing")));
+    }
+}
@@ -0,0 +1,74 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileOperationsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void deleteDirRemovesTheWholeTree() throws Exception {
+        Path root = dir.resolve("root");
+        Files.createDirectories(root.resolve("a/b/c"));
+        Files.writeString(root.resolve("f.txt"), "12345");
+        Files.writeString(root.resolve("a/g.txt"), "12");
+        Files.writeString(root.resolve("a/b/c/h.txt"), "1");
+
+        FileOperations.DeleteResult result = FileOperations.deleteDir(root, 2);
+        assertTrue(result.isSuccess(), result.failures().toString());
+        assertEquals(3, result.files());
+        assertEquals(4, result.directories());
+        assertEquals(8, result.bytes());
+        assertFalse(Files.exists(root));
+    }
+
+    @Test
+    void deleteDirDeletesALinkedRootWithoutItsTarget() throws Exception {
+        Path target = Files.createDirectories(dir.resolve("target"));
+        Files.writeString(target.resolve("k.txt"), "keep");
+        Path link = Files.createSymbolicLink(dir.resolve("link"), target);
+
+        FileOperations.DeleteResult result = FileOperations.deleteDir(link);
+        assertTrue(result.isSuccess(), result.failures().toString());
+        assertFalse(Files.exists(link, LinkOption.NOFOLLOW_LINKS));
+        assertEquals("keep", Files.readString(target.resolve("k.txt")));
+    }
+
+    @Test
+    void deleteDirDoesNotFollowLinksInsideTheTree() throws Exception {
+        Path target = Files.createDirectories(dir.resolve("target"));
+        Files.writeString(target.resolve("k.txt"), "keep");
+        Path root = Files.createDirectories(dir.resolve("root"));
+        Files.createSymbolicLink(root.resolve("link"), target);
+
+        assertTrue(FileOperations.deleteDir(root).isSuccess());
+        assertFalse(Files.exists(root));
+        assertEquals("keep", Files.readString(target.resolve("k.txt")));
+    }
+
+    @Test
+    void deleteDirReportsAMissingRoot() {
+        FileOperations.DeleteResult result = FileOperations.deleteDir(dir.resolve("missing"));
+        assertFalse(result.isSuccess());
+        assertInstanceOf(NoSuchFileException.class, result.failures().get(0));
+    }
+
+    @Test
+    void deleteDirRejectsANonPositiveParallelism() throws Exception {
+        Path root = Files.createDirectories(dir.resolve("kept"));
+        assertThrows(IllegalArgumentException.class, () -> FileOperations.deleteDir(root, 0));
+        assertTrue(Files.exists(root));
+    }
+}
@@ -0,0 +1,115 @@
+package com.maemlab.craftbox;
+
+import com.maemlab.craftbox.FixedDateTimeFormat.Layout;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FixedDateTimeParserTest {
+    private static final Map<Layout, DateTimeFormatter> STRICT = Map.of(
+            Layout.ISO_DATE, strict("uuuu-MM-dd"),
+            Layout.ITALIAN_DATE, strict("dd/MM/uuuu"),
+            Layout.UK_DATE, strict("uuuu/MM/dd"),
+            Layout.TIMESTAMP, strict("uuuu-MM-dd HH:mm:ss"),
+            Layout.ITALIAN_DATETIME, strict("dd/MM/uuuu HH:mm:ss"),
+            Layout.COMPACT, strict("uuuuMMdd_HHmmss"));
+
+    @Test
+    void everyDayAndMonthMatchesTheStrictFormatter() {
+        // Leap and common years, including the century rules
+        for (int year : new int[]{1, 1900, 1999, 2000, 2023, 2024, 2100, 9999}) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    String y = String.format("%04d", year);
+                    String m = String.format("%02d", month);
+                    String d = String.format("%02d", day);
+                    assertSameAsFormatter(y + "-" + m + "-" + d, Layout.ISO_DATE);
+                    assertSameAsFormatter(d + "/" + m + "/" + y, Layout.ITALIAN_DATE);
+                    assertSameAsFormatter(y + "/" + m + "/" + d, Layout.UK_DATE);
+                    assertSameAsFormatter(y + "-" + m + "-" + d + " 23:59:59", Layout.TIMESTAMP);
+                    assertSameAsFormatter(d + "/" + m + "/" + y + " 00:00:00", Layout.ITALIAN_DATETIME);
+                    assertSameAsFormatter(y + m + d + "_120000", Layout.COMPACT);
+                }
+            }
+        }
+    }
+
+    @Test
+    void leapDaysAndMonthBounds() {
+        assertEquals(LocalDate.of(2024, 2, 29), FixedDateTimeParser.parseDate("2024-02-29", Layout.ISO_DATE));
+        assertEquals(LocalDate.of(2000, 2, 29), FixedDateTimeParser.parseDate("29/02/2000", Layout.ITALIAN_DATE));
+        assertNull(FixedDateTimeParser.parseDate("2023-02-29", Layout.ISO_DATE));
+        assertNull(FixedDateTimeParser.parseDate("1900-02-29", Layout.ISO_DATE));
+        assertNull(FixedDateTimeParser.parseDate("2024-02-30", Layout.ISO_DATE));
+        assertNull(FixedDateTimeParser.parseDate("2024-00-10", Layout.ISO_DATE));
+        assertNull(FixedDateTimeParser.parseDate("2024-13-10", Layout.ISO_DATE));
+        assertNull(FixedDateTimeParser.parseDate("2024-01-00", Layout.ISO_DATE));
+        assertNull(FixedDateTimeParser.parseDate("2024-01-32", Layout.ISO_DATE));
+    }
+
+    @Test
+    void wrongSeparatorsAndCharactersAreRejected() {
+        List<String> dates = List.of("2024/01/15", "2024-01/15", "2024.01.15", "2024-1-15", "2024-01-15 ", " 2024-01-15",
+                "+024-01-15", "2024-0a-15", "2024-01-1١", "");
+        for (String text : dates) {
+            assertSameAsFormatter(text, Layout.ISO_DATE);
+        }
+        List<String> timestamps = List.of("2024-01-15T10:00:00", "2024-01-15 10.00.00", "2024-01-15 24:00:00",
+                "2024-01-15 23:60:00", "2024-01-15 23:59:60", "2024-01-15 -1:00:00", "2024-01-15  10:00:0");
+        for (String text : timestamps) {
+            assertSameAsFormatter(text, Layout.TIMESTAMP);
+        }
+        assertSameAsFormatter("20240115-120000", Layout.COMPACT);
+        assertSameAsFormatter("20240115_240000", Layout.COMPACT);
+        assertFalse(FixedDateTimeParser.isValid(null, Layout.ISO_DATE));
+    }
+
+    @Test
+    void bulkParsingMarksInvalidRows() {
+        CharSequence[] column = {"1970-01-01", "2024-02-30", null, "2024-02-29", "2024/02/29"};
+        long[] days = new long[column.length];
+        assertEquals(3, FixedDateTimeParser.parseEpochDays(column, Layout.ISO_DATE, days));
+        assertArrayEquals(new long[]{0, FixedDateTimeParser.INVALID, FixedDateTimeParser.INVALID,
+                LocalDate.of(2024, 2, 29).toEpochDay(), FixedDateTimeParser.INVALID}, days);
+
+        String[] converted = new String[column.length];
+        assertEquals(3, FixedDateTimeParser.convert(column, Layout.ISO_DATE, Layout.ITALIAN_DATE, converted));
+        assertArrayEquals(new String[]{"01/01/1970", null, null, "29/02/2024", null}, converted);
+
+        assertEquals(List.of("29/02/2024 00:00:00", "-"), FixedDateTimeParser.convert(
+                Stream.of("2024-02-29", "2023-02-29"), Layout.ISO_DATE, Layout.ITALIAN_DATETIME, "-").toList());
+    }
+
+    private static void assertSameAsFormatter(String text, Layout layout) {
+        LocalDateTime expected;
+        try {
+            var parsed = STRICT.get(layout).parse(text);
+            expected = layout.hasTime() ? LocalDateTime.from(parsed) : LocalDate.from(parsed).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            expected = null;
+        }
+        LocalDateTime actual = FixedDateTimeParser.parseDateTime(text, layout);
+        assertEquals(expected, actual, layout + " " + text);
+        long second = FixedDateTimeParser.parseLocalEpochSecond(text, layout);
+        assertEquals(expected == null ? FixedDateTimeParser.INVALID : expected.toEpochSecond(ZoneOffset.UTC), second, text);
+        long day = FixedDateTimeParser.parseEpochDay(text, layout);
+        assertEquals(expected == null ? FixedDateTimeParser.INVALID : expected.toLocalDate().toEpochDay(), day, text);
+    }
+
+    private static DateTimeFormatter strict(String pattern) {
+        return DateTimeFormatter.ofPattern(pattern).withResolverStyle(ResolverStyle.STRICT);
+    }
+}
@@ -0,0 +1,73 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IoStatisticsTest {
+    @TempDir
+    Path dir;
+
+    private final IoStatistics stats = new IoStatistics();
+
+    @BeforeEach
+    void install() {
+        IoMetrics.install(stats);
+    }
+
+    @AfterEach
+    void uninstall() {
+        IoMetrics.install(null);
+    }
+
+    @Test
+    void writesCountTheEncodedBytes() throws Exception {
+        String json = "{\"name\":\"café € 😀\"}";
+        Path file = dir.resolve("a.json");
+        FileOperations.saveJsonStrToFile(file, json);
+        FileOperations.saveJsonStrToFileAtomic(dir.resolve("b.json"), json);
+
+        IoStatistics.OperationStats write = stats.snapshot(IoMetrics.Operation.WRITE);
+        assertEquals(2, write.count());
+        assertEquals(0, write.errors());
+        assertEquals(2L * json.getBytes(StandardCharsets.UTF_8).length, write.bytesWritten());
+        assertEquals(Files.size(file), json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void readsAndListingsAreRecorded() throws Exception {
+        Files.writeString(dir.resolve("a.txt"), "caf\u00e9\r\n\u20ac\r\n");
+        Files.writeString(dir.resolve("b.log"), "x");
+        assertEquals(2, FileOperations.readSmallTextFileToList(dir.resolve("a.txt").toString()).size());
+        assertEquals(1, FileOperations.listFilesByExtension(dir, ".txt").size());
+
+        IoStatistics.OperationStats read = stats.snapshot(IoMetrics.Operation.READ);
+        assertEquals(1, read.count());
+        assertEquals(Files.size(dir.resolve("a.txt")), read.bytesRead());
+        IoStatistics.OperationStats list = stats.snapshot(IoMetrics.Operation.LIST);
+        assertEquals(1, list.count());
+        assertEquals(1, list.files());
+    }
+
+    @Test
+    void failuresAreRecordedAndRethrown() {
+        assertThrows(NoSuchFileException.class, () -> FileOperations.deleteFile(dir.resolve("missing")));
+        IoStatistics.OperationStats delete = stats.snapshot(IoMetrics.Operation.DELETE);
+        assertEquals(1, delete.count());
+        assertEquals(1, delete.errors());
+        assertTrue(delete.totalNanos() > 0);
+
+        stats.reset();
+        assertEquals(0, stats.snapshot(IoMetrics.Operation.DELETE).count());
+    }
+}
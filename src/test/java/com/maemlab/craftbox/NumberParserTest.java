@@ -0,0 +1,121 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumberParserTest {
+    private final NumberParser.Result r = new NumberParser.Result();
+
+    @Test
+    void intBoundsAndOverflow() {
+        assertEquals(Integer.MAX_VALUE, NumberParser.parseInt("2147483647", 0));
+        assertEquals(Integer.MIN_VALUE, NumberParser.parseInt("-2147483648", 0));
+        assertEquals(-1, NumberParser.parseInt("2147483648", -1));
+        assertEquals(-1, NumberParser.parseInt("-2147483649", -1));
+        assertEquals(NumberParser.Status.OUT_OF_RANGE,
+                NumberParser.parseLong("2147483648", Integer.MIN_VALUE, Integer.MAX_VALUE, r));
+        assertTrue(NumberParser.isInt("+2147483647"));
+        assertFalse(NumberParser.isInt("-2147483649"));
+    }
+
+    @Test
+    void longBoundsAndOverflow() {
+        assertEquals(Long.MAX_VALUE, NumberParser.parseLong("9223372036854775807", 0));
+        assertEquals(Long.MIN_VALUE, NumberParser.parseLong("-9223372036854775808", 0));
+        assertEquals(NumberParser.Status.OUT_OF_RANGE,
+                NumberParser.parseLong("9223372036854775808", Long.MIN_VALUE, Long.MAX_VALUE, r));
+        assertEquals(NumberParser.Status.OUT_OF_RANGE,
+                NumberParser.parseLong("-9223372036854775809", Long.MIN_VALUE, Long.MAX_VALUE, r));
+        // A malformed tail after an overflow still makes the value malformed
+        assertEquals(NumberParser.Status.MALFORMED,
+                NumberParser.parseLong("99999999999999999999x", Long.MIN_VALUE, Long.MAX_VALUE, r));
+    }
+
+    @Test
+    void signsAloneAndEmptyInputAreInvalid() {
+        assertEquals(NumberParser.Status.MALFORMED, NumberParser.parseLong("+", Long.MIN_VALUE, Long.MAX_VALUE, r));
+        assertEquals(NumberParser.Status.MALFORMED, NumberParser.parseLong("-", Long.MIN_VALUE, Long.MAX_VALUE, r));
+        assertEquals(NumberParser.Status.EMPTY, NumberParser.parseLong("", Long.MIN_VALUE, Long.MAX_VALUE, r));
+        assertEquals(NumberParser.Status.EMPTY, NumberParser.parseLong(null, Long.MIN_VALUE, Long.MAX_VALUE, r));
+        assertEquals(NumberParser.Status.MALFORMED, NumberParser.parseDecimal("-", -1e9, 1e9, r));
+        assertEquals(NumberParser.Status.MALFORMED, NumberParser.parseDecimal("+.", -1e9, 1e9, r));
+        assertEquals(NumberParser.Status.EMPTY, NumberParser.parseDecimal("", -1e9, 1e9, r));
+        assertEquals(NumberParser.Status.MALFORMED, NumberParser.parseDecimal("1e", -1e9, 1e9, r));
+    }
+
+    @Test
+    void isNumericRejectsNonAsciiDigits() {
+        // Integer.parseInt accepts any Unicode digit, the parser only ASCII ones
+        assertEquals(3, Integer.parseInt("٣"));
+        assertFalse(Validation.isNumeric("٣"));
+        assertTrue(Validation.isNumeric("-42"));
+        assertFalse(Validation.isNumeric(" 42"));
+    }
+
+    @Test
+    void decimalsMatchDoubleParseDouble() {
+        String[] fixed = {"0", "-0", "0.0", "1", "-1.5", "0.1", "0.3", "123.456", "1e22", "1e23", "9007199254740993",
+                "1.7976931348623157e308", "4.9e-324", "2.2250738585072014E-308", ".5", "5.", "+7e-3",
+                "123456789012345678901234567890", "0.000000000000000000000000001"};
+        for (String s : fixed) {
+            assertDecimal(s);
+        }
+        // Random values of the exact fast path: up to 15 digits, a power of ten up to 22
+        var random = new Random(4);
+        for (int i = 0; i < 100_000; i++) {
+            long mantissa = random.nextLong() % 1_000_000_000_000_000L;
+            int scale = random.nextInt(23);
+            String digits = Long.toString(Math.abs(mantissa));
+            String s = random.nextBoolean()
+                    ? (mantissa < 0 ? "-" : "") + digits + "e" + (random.nextBoolean() ? "-" : "") + scale
+                    : (mantissa < 0 ? "-" : "") + digits.substring(0, digits.length() / 2) + "." + digits.substring(digits.length() / 2);
+            assertDecimal(s);
+        }
+    }
+
+    @Test
+    void decimalsBeyondTheDoubleRangeAreOutOfRange() {
+        assertEquals(NumberParser.Status.OUT_OF_RANGE, NumberParser.parseDecimal("1e309", -Double.MAX_VALUE, Double.MAX_VALUE, r));
+        assertTrue(Double.isNaN(NumberParser.parseDecimal("abc", Double.NaN)));
+        assertFalse(NumberParser.isDecimal("NaN"));
+        assertFalse(NumberParser.isDecimal("Infinity"));
+    }
+
+    @Test
+    void parseLongsKeepsRowsAligned() {
+        CharSequence[] column = {"1", "", "x", null, "-5", "9223372036854775808", "+7", "100"};
+        NumberParser.LongColumn parsed = NumberParser.parseLongs(column, -10, 10);
+        assertEquals(8, parsed.size());
+        assertArrayEquals(new long[]{1, 0, 0, 0, -5, 0, 7, 0}, parsed.values());
+        BitSet valid = new BitSet();
+        valid.set(0);
+        valid.set(4);
+        valid.set(6);
+        assertEquals(valid, parsed.valid());
+        assertEquals(5, parsed.invalidCount());
+
+        // The stream variant grows past its initial capacity and keeps the same alignment
+        NumberParser.LongColumn streamed = NumberParser.parseLongs(
+                Stream.iterate(0, i -> i + 1).limit(3000).map(i -> i % 3 == 0 ? "bad" : Integer.toString(i)),
+                Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(3000, streamed.size());
+        assertEquals(1000, streamed.invalidCount());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i % 3 != 0, streamed.valid().get(i));
+            assertEquals(i % 3 == 0 ? 0 : i, streamed.values()[i]);
+        }
+    }
+
+    private void assertDecimal(String s) {
+        assertEquals(NumberParser.Status.VALID, NumberParser.parseDecimal(s, -Double.MAX_VALUE, Double.MAX_VALUE, r), s);
+        assertEquals(Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(r.doubleValue()), s);
+    }
+}
@@ -0,0 +1,108 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenizerTest {
+    private static final String[] TEXTS = {"", "a", ";", ";;", "a;b", ";a;b", "a;b;", "a;;b", ";;a;;b;;", "abc",
+            "a; b;c ", " ", "::a::", "a::b:c", "a:::b", "a1b22c333", "1a", "a1", "||x|y||", "x y\tz  w"};
+
+    @Test
+    void charSeparatorsMatchSplit() {
+        assertLikeSplit(";");
+        assertLikeSplit(" ");
+    }
+
+    @Test
+    void literalSeparatorsMatchSplit() {
+        // Multi-char literals, and escaped metacharacters searched literally
+        assertLikeSplit("::");
+        assertLikeSplit("; ");
+        assertLikeSplit("\\|");
+        assertLikeSplit("||");
+        assertFalse(Tokenizer.of("::").isRegex());
+        assertFalse(Tokenizer.of("\\|").isRegex());
+    }
+
+    @Test
+    void regexSeparatorsMatchSplit() {
+        assertLikeSplit("\\d+");
+        assertLikeSplit("[;:]");
+        assertLikeSplit("\\s+");
+        assertLikeSplit(":+");
+        // Zero-width matches: no leading empty token
+        assertLikeSplit("");
+        assertLikeSplit("(?=b)");
+        assertTrue(Tokenizer.of("\\d+").isRegex());
+    }
+
+    @Test
+    void wordFunctionsMatchSplit() {
+        assertEquals("a;;b;".split(";").length, StringUtils.getWordCount("a;;b;", ";"));
+        assertEquals("b", StringUtils.getWordNum("a;;b;", 3, ";"));
+        assertEquals("", StringUtils.getWordNum("a;;b;", 4, ";"));
+        assertEquals(1, StringUtils.getWordCount("", ";"));
+    }
+
+    @Test
+    void cursorReportsTokenBounds() {
+        String text = ";ab;;cde;";
+        var cursor = Tokenizer.of(';').cursor(text);
+        List<int[]> bounds = new ArrayList<>();
+        while (cursor.next()) {
+            assertEquals(cursor.end() - cursor.start(), cursor.length());
+            assertEquals(text.substring(cursor.start(), cursor.end()), cursor.token().toString());
+            bounds.add(new int[]{cursor.start(), cursor.end()});
+        }
+        // split gives "", "ab", "", "cde"
+        assertEquals(4, bounds.size());
+        assertEquals(List.of("0-0", "1-3", "4-4", "5-8"),
+                bounds.stream().map(b -> b[0] + "-" + b[1]).toList());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void viewsCheckTheirBounds() {
+        CharSequence token = Tokenizer.of(';').token("xx;abcd;yy", 1);
+        assertEquals("abcd", token.toString());
+        assertEquals(4, token.length());
+        assertEquals('a', token.charAt(0));
+        assertEquals('d', token.charAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> token.charAt(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> token.charAt(-1));
+        CharSequence sub = token.subSequence(1, 3);
+        assertEquals("bc", sub.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> sub.charAt(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> token.subSequence(2, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> token.subSequence(3, 2));
+        assertNull(Tokenizer.of(';').token("a;b", 2));
+        assertNull(Tokenizer.of(';').token("a;b", -1));
+    }
+
+    private static void assertLikeSplit(String separator) {
+        var tokenizer = Tokenizer.of(separator);
+        for (String text : TEXTS) {
+            String[] expected = text.split(separator);
+            String where = "'" + text + "' split by '" + separator + "'";
+            assertEquals(expected.length, tokenizer.count(text), where);
+            List<String> tokens = new ArrayList<>();
+            tokenizer.forEach(text, t -> tokens.add(t.toString()));
+            assertEquals(List.of(expected), tokens, where);
+            List<String> iterated = new ArrayList<>();
+            tokenizer.tokens(text).forEach(t -> iterated.add(t.toString()));
+            assertEquals(List.of(expected), iterated, where);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], tokenizer.token(text, i).toString(), where + " token " + i);
+            }
+            assertNull(tokenizer.token(text, expected.length), where);
+        }
+    }
+}
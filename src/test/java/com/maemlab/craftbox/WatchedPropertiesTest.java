@@ -0,0 +1,38 @@
+package com.maemlab.craftbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WatchedPropertiesTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void failingListenerDoesNotSkipTheOthers() throws Exception {
+        Path file = Files.writeString(dir.resolve("app.properties"), "a=1");
+        List<String> seen = new CopyOnWriteArrayList<>();
+        try (var props = WatchedProperties.watch(file, Duration.ofHours(1))) {
+            props.addListener(s -> {
+                throw new IllegalStateException("first");
+            });
+            props.addListener(s -> seen.add(s.getString("a")));
+            Files.writeString(file, "a=2");
+            try {
+                props.reload();
+            } catch (IllegalStateException e) {
+                // Unless the watcher thread published the change first
+                assertEquals("first", e.getMessage());
+            }
+            assertEquals("2", props.snapshot().getString("a"));
+            assertEquals(List.of("2"), seen);
+        }
+    }
+}